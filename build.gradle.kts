@@ -2,6 +2,7 @@ plugins {
     `java-library`
     `maven-publish`
     signing
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 java {
@@ -27,6 +28,18 @@ tasks.test {
     useJUnitPlatform()
 }
 
+tasks.jar {
+    manifest {
+        attributes("Main-Class" to "xyz.rtfpessoa.smartversion.Main")
+    }
+}
+
+jmh {
+    jmhVersion = "1.37"
+    // Reports gc.alloc.rate.norm (bytes allocated per operation) next to the throughput
+    profilers = listOf("gc")
+}
+
 publishing {
     publications {
         create<MavenPublication>("maven") {
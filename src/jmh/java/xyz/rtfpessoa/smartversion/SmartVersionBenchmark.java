@@ -0,0 +1,113 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the hot paths of {@link SmartVersion} over the checked-in corpus, for every {@link
+ * Item.ComparisonMode}.
+ *
+ * <p>Each invocation moves to the next corpus entry so the results reflect the whole mix of
+ * version shapes instead of a single string. Run with {@code ./gradlew jmh}; the {@code gc}
+ * profiler is enabled in the build so {@code gc.alloc.rate.norm} reports the bytes allocated per
+ * operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmartVersionBenchmark {
+
+  @Param({"MAVEN", "SEMVER", "MIXED"})
+  public Item.ComparisonMode mode;
+
+  private String[] corpus;
+
+  private SmartVersion[] parsed;
+
+  private VersionBatch batch;
+
+  private int[] results;
+
+  private int index;
+
+  @Setup
+  public void setup() {
+    corpus = VersionCorpus.load();
+    parsed = new SmartVersion[corpus.length];
+    for (int i = 0; i < corpus.length; i++) {
+      parsed[i] = new SmartVersion(corpus[i], mode);
+    }
+    batch = VersionBatch.of(Arrays.asList(parsed), mode);
+    results = new int[parsed.length];
+    index = 0;
+  }
+
+  private int next() {
+    int i = index + 1;
+    if (i == corpus.length) {
+      i = 0;
+    }
+    index = i;
+    return i;
+  }
+
+  /** Parses with the MAVEN parser in MAVEN mode and with the SemVer one otherwise. */
+  @Benchmark
+  public SmartVersion parse() {
+    return new SmartVersion(corpus[next()], mode);
+  }
+
+  @Benchmark
+  public int compareTo() {
+    int i = next();
+    int j = i == 0 ? parsed.length - 1 : i - 1;
+    return parsed[i].compareTo(parsed[j]);
+  }
+
+  /** Compares unparsed neighbours, which only parses the pairs the numbers do not decide. */
+  @Benchmark
+  public int compareStrings() {
+    int i = next();
+    int j = i == 0 ? corpus.length - 1 : i - 1;
+    return SmartVersion.compare(corpus[i], corpus[j], mode);
+  }
+
+  /** The canonical form is cached per instance, so a fresh instance is needed on every call. */
+  @Benchmark
+  public String parseAndGetCanonical() {
+    return new SmartVersion(corpus[next()], mode).getCanonical();
+  }
+
+  /** Compares the corpus with one of its versions, so the score is in corpus scans per ms. */
+  @Benchmark
+  public int[] compareAllWithPivot() {
+    batch.compareAll(parsed[next()], results);
+    return results;
+  }
+
+  @Benchmark
+  public int hashCodeOfParsed() {
+    return parsed[next()].hashCode();
+  }
+
+  /** Sorts the whole corpus, so the score is in corpus sorts per millisecond. */
+  @Benchmark
+  public List<String> sortStrings() {
+    return SmartVersions.sortStrings(Arrays.asList(corpus), mode);
+  }
+}
@@ -0,0 +1,38 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Loads the checked-in version corpus shared by all the benchmarks. */
+final class VersionCorpus {
+
+  private static final String RESOURCE = "/versions.txt";
+
+  private VersionCorpus() {}
+
+  static String[] load() {
+    try (InputStream in = VersionCorpus.class.getResourceAsStream(RESOURCE)) {
+      if (in == null) {
+        throw new IllegalStateException("missing benchmark corpus: " + RESOURCE);
+      }
+      BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+      List<String> versions = new ArrayList<>();
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (!line.isEmpty() && !line.startsWith("#")) {
+          versions.add(line);
+        }
+      }
+      return versions.toArray(new String[0]);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -1,31 +1,53 @@
 package xyz.rtfpessoa.smartversion;
 
-import static xyz.rtfpessoa.smartversion.SmartVersion.parseItem;
-
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Objects;
 
 /**
  * Represents a combination in the version item list. It is usually a combination of a string and a
  * number, with the string first and the number second.
+ *
+ * <p>The parsers share one instance of each well-known qualifier followed by a small number, e.g.
+ * {@code rc1}, see {@link #of(StringItem, Item)}.
  */
 public class CombinationItem implements Item {
 
-  StringItem stringPart;
+  /** Numbers below this one are shared after a well-known qualifier. */
+  private static final int POOL_SIZE = 16;
 
-  Item digitPart;
+  /** The shared combinations of each shared qualifier item, by number. */
+  private static final Map<StringItem, CombinationItem[]> POOL = new IdentityHashMap<>();
 
-  CombinationItem(String value, ComparisonMode mode) {
-    int index = 0;
-    for (int i = 0; i < value.length(); i++) {
-      char c = value.charAt(i);
-      if (Character.isDigit(c)) {
-        index = i;
-        break;
+  static {
+    for (StringItem qualifier : StringItem.pooled()) {
+      CombinationItem[] combinations = new CombinationItem[POOL_SIZE];
+      for (int i = 0; i < POOL_SIZE; i++) {
+        combinations[i] = new CombinationItem(qualifier, LongItem.valueOf(i));
       }
+      POOL.put(qualifier, combinations);
     }
+  }
+
+  final StringItem stringPart;
+
+  final Item digitPart;
 
-    stringPart = StringItem.newStringItem(value.substring(0, index), true, mode);
-    digitPart = parseItem(false, true, value.substring(index), mode);
+  CombinationItem(StringItem stringPart, Item digitPart) {
+    this.stringPart = stringPart;
+    this.digitPart = digitPart;
+  }
+
+  /** Returns the combination, which is a shared instance for the common ones. */
+  static CombinationItem of(StringItem stringPart, Item digitPart) {
+    if (digitPart.getType() == Item.Type.LONG) {
+      long value = ((LongItem) digitPart).value();
+      CombinationItem[] combinations = POOL.get(stringPart);
+      if (combinations != null && value >= 0 && value < POOL_SIZE) {
+        return combinations[(int) value];
+      }
+    }
+    return new CombinationItem(stringPart, digitPart);
   }
 
   @Override
@@ -0,0 +1,53 @@
+package xyz.rtfpessoa.smartversion;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event of a comparison that walks the items of the versions, disabled unless the
+ * recording settings enable {@code xyz.rtfpessoa.smartversion.Compare}. Comparisons settled by the
+ * prefix keys are not recorded.
+ */
+@Name("xyz.rtfpessoa.smartversion.Compare")
+@Label("Slow Version Comparison")
+@Category("Smart Version")
+@Description("Comparison of two versions that is not settled by their first items")
+@Enabled(false)
+@StackTrace(false)
+@Threshold("10 us")
+final class CompareEvent extends Event {
+
+  @Label("Mode")
+  String mode;
+
+  @Label("Version")
+  String version;
+
+  @Label("Other Version")
+  String otherVersion;
+
+  @Label("Result")
+  int result;
+
+  /** Compares the items, committing the event when it is enabled and over its threshold. */
+  static int compare(
+      SmartVersion version, ListItem items, SmartVersion other, ListItem otherItems) {
+    CompareEvent event = new CompareEvent();
+    event.begin();
+    int result = items.compareTo(otherItems);
+    if (event.shouldCommit()) {
+      event.mode = items.getMode().name();
+      event.version = version.getOriginal();
+      event.otherVersion = other.getOriginal();
+      event.result = result;
+      event.commit();
+    }
+    return result;
+  }
+}
@@ -0,0 +1,361 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.Nullable;
+
+/** Parsers of the constraint syntaxes, see {@link VersionConstraint}. */
+final class ConstraintParser {
+
+  private static final Pattern NPM_OR = Pattern.compile("\\|\\|");
+
+  private static final Pattern NPM_HYPHEN = Pattern.compile("^(\\S+)\\s+-\\s+(\\S+)$");
+
+  private static final Pattern NPM_OPERATOR_SPACE = Pattern.compile("(<=|>=|<|>|=|~>|~|\\^)\\s+");
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private static final String NPM_PART = "(\\d+|[xX*])";
+
+  /** A partial version, the pre-release and build are only allowed after the patch. */
+  private static final Pattern NPM_PARTIAL =
+      Pattern.compile(
+          "^[vV]?"
+              + NPM_PART
+              + "(?:\\."
+              + NPM_PART
+              + "(?:\\."
+              + NPM_PART
+              + "(?:-([0-9A-Za-z.-]+))?(?:\\+[0-9A-Za-z.-]+)?)?)?$");
+
+  private ConstraintParser() {}
+
+  /** Parses Maven ranges, following {@code org.apache.maven.artifact.versioning.VersionRange}. */
+  static VersionConstraint parseMaven(String spec) {
+    Item.ComparisonMode mode = Item.ComparisonMode.MAVEN;
+    List<VersionRange> ranges = new ArrayList<>();
+    String process = spec.trim();
+    while (process.startsWith("[") || process.startsWith("(")) {
+      int close = process.indexOf(')');
+      int closeInclusive = process.indexOf(']');
+      int index = closeInclusive;
+      if (closeInclusive < 0 || (close >= 0 && close < closeInclusive)) {
+        index = close;
+      }
+      if (index < 0) {
+        throw new IllegalArgumentException("Unbounded range: " + spec);
+      }
+
+      VersionRange range = parseMavenRange(process.substring(0, index + 1), spec);
+      // like Maven, a range after one without upper bound is not checked
+      if (!ranges.isEmpty() && ranges.get(ranges.size() - 1).upper() != null) {
+        VersionRange previous = ranges.get(ranges.size() - 1);
+        if (range.lower() == null || range.lower().compareTo(previous.upper()) < 0) {
+          throw new IllegalArgumentException("Ranges overlap: " + spec);
+        }
+      }
+      ranges.add(range);
+
+      process = process.substring(index + 1).trim();
+      if (process.startsWith(",")) {
+        process = process.substring(1).trim();
+      }
+    }
+
+    if (!process.isEmpty()) {
+      if (!ranges.isEmpty()) {
+        throw new IllegalArgumentException(
+            "Only fully-qualified sets allowed in multiple set scenario: " + spec);
+      }
+      // a recommended version, which does not restrict the versions
+      ranges.add(VersionRange.ALL);
+    } else if (ranges.isEmpty()) {
+      throw new IllegalArgumentException("Empty version range: " + spec);
+    }
+    return new VersionConstraint(spec, mode, ranges.toArray(new VersionRange[0]), null);
+  }
+
+  private static VersionRange parseMavenRange(String range, String spec) {
+    boolean lowerInclusive = range.startsWith("[");
+    boolean upperInclusive = range.endsWith("]");
+    String inner = range.substring(1, range.length() - 1).trim();
+
+    int comma = inner.indexOf(',');
+    if (comma < 0) {
+      if (!lowerInclusive || !upperInclusive) {
+        throw new IllegalArgumentException("Single version must be surrounded by []: " + spec);
+      }
+      return VersionRange.exactly(new SmartVersion(inner));
+    }
+
+    String lower = inner.substring(0, comma).trim();
+    String upper = inner.substring(comma + 1).trim();
+    if (upper.indexOf(',') >= 0) {
+      throw new IllegalArgumentException("Invalid range: " + spec);
+    }
+    return new VersionRange(
+        lower.isEmpty() ? null : new SmartVersion(lower),
+        lowerInclusive,
+        upper.isEmpty() ? null : new SmartVersion(upper),
+        upperInclusive);
+  }
+
+  /**
+   * Parses npm ranges, following {@code node-semver}. The upper bounds that npm writes {@code
+   * <2.0.0-0} are written {@code <2.0.0}, which only differs for the pre-releases of 2.0.0 that the
+   * pre-release rule of {@link VersionConstraint} already leaves out.
+   */
+  static VersionConstraint parseNpm(String spec, Item.ComparisonMode mode) {
+    List<VersionRange> ranges = new ArrayList<>();
+    List<SmartVersion[]> preReleases = new ArrayList<>();
+    for (String set : NPM_OR.split(spec.trim(), -1)) {
+      Bounds bounds = new Bounds(mode, spec);
+      set = set.trim();
+      Matcher hyphen = NPM_HYPHEN.matcher(set);
+      if (hyphen.matches()) {
+        bounds.hyphen(partial(hyphen.group(1), spec), partial(hyphen.group(2), spec));
+      } else if (!set.isEmpty()) {
+        String comparators = NPM_OPERATOR_SPACE.matcher(set).replaceAll("$1");
+        for (String comparator : WHITESPACE.split(comparators)) {
+          bounds.comparator(comparator);
+        }
+      }
+
+      VersionRange range = bounds.toRange();
+      if (range != null) {
+        ranges.add(range);
+        preReleases.add(bounds.preReleases.toArray(new SmartVersion[0]));
+      }
+    }
+    return new VersionConstraint(
+        spec,
+        mode,
+        ranges.toArray(new VersionRange[0]),
+        preReleases.toArray(new SmartVersion[0][]));
+  }
+
+  private static Partial partial(String version, String spec) {
+    Matcher matcher = NPM_PARTIAL.matcher(version);
+    if (!matcher.matches()) {
+      throw new IllegalArgumentException("Invalid version '" + version + "' in range: " + spec);
+    }
+    String[] parts = new String[3];
+    for (int i = 0; i < 3; i++) {
+      String part = matcher.group(i + 1);
+      if (part == null || !Character.isDigit(part.charAt(0))) {
+        // a wildcard also makes the parts after it wildcards
+        break;
+      }
+      parts[i] = part;
+    }
+    return new Partial(parts[0], parts[1], parts[2], parts[2] == null ? null : matcher.group(4));
+  }
+
+  /** A version with {@code null} in place of the missing or wildcard parts. */
+  private record Partial(
+      @Nullable String major,
+      @Nullable String minor,
+      @Nullable String patch,
+      @Nullable String preRelease) {
+
+    /** Returns the number of parts that are set. */
+    int known() {
+      return major == null ? 0 : minor == null ? 1 : patch == null ? 2 : 3;
+    }
+
+    /** Returns the version with the missing parts set to 0. */
+    String floor() {
+      String version = zero(major) + "." + zero(minor) + "." + zero(patch);
+      return preRelease == null ? version : version + "-" + preRelease;
+    }
+
+    /** Returns the first release after the versions matched by the known parts. */
+    String ceiling() {
+      if (minor == null) {
+        return increment(major) + ".0.0";
+      }
+      if (patch == null) {
+        return major + "." + increment(minor) + ".0";
+      }
+      return major + "." + minor + "." + increment(patch);
+    }
+
+    private static String zero(@Nullable String part) {
+      return part == null ? "0" : part;
+    }
+
+    private static String increment(@Nullable String part) {
+      return new BigInteger(part).add(BigInteger.ONE).toString();
+    }
+  }
+
+  /** The intersection of the comparators of an npm comparator set. */
+  private static final class Bounds {
+
+    private final Item.ComparisonMode mode;
+
+    private final String spec;
+
+    private @Nullable SmartVersion lower;
+
+    private boolean lowerInclusive;
+
+    private @Nullable SmartVersion upper;
+
+    private boolean upperInclusive;
+
+    private boolean empty;
+
+    private final List<SmartVersion> preReleases = new ArrayList<>();
+
+    Bounds(Item.ComparisonMode mode, String spec) {
+      this.mode = mode;
+      this.spec = spec;
+    }
+
+    void comparator(String comparator) {
+      String operator = operator(comparator);
+      Partial partial = partial(comparator.substring(operator.length()), spec);
+      int known = partial.known();
+      switch (operator) {
+        case "":
+        case "=":
+          if (known == 3) {
+            atLeast(partial.floor(), true);
+            atMost(partial.floor(), true);
+          } else if (known > 0) {
+            atLeast(partial.floor(), true);
+            atMost(partial.ceiling(), false);
+          }
+          break;
+        case "~":
+        case "~>":
+          if (known > 0) {
+            atLeast(partial.floor(), true);
+            // ~1.2.3 allows patch-level changes, ~1 allows minor-level changes
+            Partial prefix =
+                known == 1 ? partial : new Partial(partial.major, partial.minor, null, null);
+            atMost(prefix.ceiling(), false);
+          }
+          break;
+        case "^":
+          if (known > 0) {
+            atLeast(partial.floor(), true);
+            atMost(caretCeiling(partial), false);
+          }
+          break;
+        case ">":
+          if (known == 0) {
+            empty = true;
+          } else if (known == 3) {
+            atLeast(partial.floor(), false);
+          } else {
+            atLeast(partial.ceiling(), true);
+          }
+          break;
+        case ">=":
+          if (known > 0) {
+            atLeast(partial.floor(), true);
+          }
+          break;
+        case "<":
+          if (known == 0) {
+            empty = true;
+          } else {
+            atMost(partial.floor(), false);
+          }
+          break;
+        case "<=":
+          if (known == 3) {
+            atMost(partial.floor(), true);
+          } else if (known > 0) {
+            atMost(partial.ceiling(), false);
+          }
+          break;
+        default:
+          throw new IllegalStateException("invalid operator: " + operator);
+      }
+      preRelease(partial);
+    }
+
+    void hyphen(Partial from, Partial to) {
+      if (from.known() > 0) {
+        atLeast(from.floor(), true);
+      }
+      if (to.known() == 3) {
+        atMost(to.floor(), true);
+      } else if (to.known() > 0) {
+        atMost(to.ceiling(), false);
+      }
+      preRelease(from);
+      preRelease(to);
+    }
+
+    private static String operator(String comparator) {
+      for (String operator : new String[] {">=", "<=", "~>", ">", "<", "=", "~", "^"}) {
+        if (comparator.startsWith(operator)) {
+          return operator;
+        }
+      }
+      return "";
+    }
+
+    /** Returns the first release that changes the first non-zero part of the version. */
+    private static String caretCeiling(Partial partial) {
+      int known = partial.known();
+      if (known == 1 || !isZero(partial.major)) {
+        return new Partial(partial.major, null, null, null).ceiling();
+      }
+      if (known == 2 || !isZero(partial.minor)) {
+        return new Partial(partial.major, partial.minor, null, null).ceiling();
+      }
+      return partial.ceiling();
+    }
+
+    private static boolean isZero(@Nullable String part) {
+      return part != null && new BigInteger(part).signum() == 0;
+    }
+
+    private void preRelease(Partial partial) {
+      if (partial.preRelease != null) {
+        preReleases.add(new SmartVersion(partial.floor(), mode));
+      }
+    }
+
+    private void atLeast(String version, boolean inclusive) {
+      SmartVersion bound = new SmartVersion(version, mode);
+      int result = lower == null ? 1 : bound.compareTo(lower);
+      if (result > 0 || (result == 0 && !inclusive)) {
+        lower = bound;
+        lowerInclusive = inclusive;
+      }
+    }
+
+    private void atMost(String version, boolean inclusive) {
+      SmartVersion bound = new SmartVersion(version, mode);
+      int result = upper == null ? -1 : bound.compareTo(upper);
+      if (result < 0 || (result == 0 && !inclusive)) {
+        upper = bound;
+        upperInclusive = inclusive;
+      }
+    }
+
+    /** Returns the range of the comparator set, or {@code null} if it matches nothing. */
+    @Nullable
+    VersionRange toRange() {
+      if (empty) {
+        return null;
+      }
+      if (lower != null && upper != null) {
+        int result = lower.compareTo(upper);
+        if (result > 0 || (result == 0 && !(lowerInclusive && upperInclusive))) {
+          return null;
+        }
+      }
+      return new VersionRange(lower, lowerInclusive, upper, upperInclusive);
+    }
+  }
+}
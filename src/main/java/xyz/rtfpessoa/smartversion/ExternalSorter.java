@@ -0,0 +1,256 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts more versions than fit in memory.
+ *
+ * <p>The versions are added one at a time and kept with their {@link SortKey sort key} until the
+ * estimated memory use reaches the limit. The buffered versions are then sorted by key and spilled
+ * to a temporary file as a sorted run. {@link #writeTo(Writer)} merges the runs, reading them
+ * through large buffers. When everything fits in memory nothing is spilled.
+ *
+ * <p>The order is the one of {@link SmartVersions#sort(List)}: the order of the sort keys, and
+ * versions with equal keys keep the order they were added in. That is the order of {@link
+ * SmartVersion#compareTo(SmartVersion)}, except where {@code compareTo} is not transitive (see
+ * {@link SortKey}).
+ */
+public final class ExternalSorter implements Closeable {
+
+  /** The default memory limit, in bytes. */
+  public static final long DEFAULT_MEMORY_LIMIT = 64L << 20;
+
+  /** Estimated memory of a buffered version on top of its characters and key. */
+  private static final int ENTRY_OVERHEAD = 96;
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private static final Comparator<Entry> ORDER = (a, b) -> SortKey.compare(a.key, b.key);
+
+  private final Item.ComparisonMode mode;
+
+  private final long memoryLimit;
+
+  private final Path tempDirectory;
+
+  private final List<Entry> buffer = new ArrayList<>();
+
+  private long bufferedBytes;
+
+  private final List<Path> runs = new ArrayList<>();
+
+  public ExternalSorter(Item.ComparisonMode mode) {
+    this(mode, DEFAULT_MEMORY_LIMIT, Path.of(System.getProperty("java.io.tmpdir")));
+  }
+
+  /**
+   * @param memoryLimit the estimated memory, in bytes, the buffered versions can use before they
+   *     are spilled
+   * @param tempDirectory the directory of the sorted runs, which are deleted on {@link #close()}
+   */
+  public ExternalSorter(Item.ComparisonMode mode, long memoryLimit, Path tempDirectory) {
+    if (memoryLimit <= 0) {
+      throw new IllegalArgumentException("memoryLimit must be positive: " + memoryLimit);
+    }
+    this.mode = mode;
+    this.memoryLimit = memoryLimit;
+    this.tempDirectory = tempDirectory;
+  }
+
+  /** Adds a version, spilling the buffered versions when they reach the memory limit. */
+  public void add(String version) throws IOException {
+    byte[] key = new SmartVersion(version, mode).toSortKey();
+    buffer.add(new Entry(key, version));
+    bufferedBytes += ENTRY_OVERHEAD + 2L * version.length() + key.length;
+    if (bufferedBytes >= memoryLimit) {
+      spill();
+    }
+  }
+
+  /** Returns the number of sorted runs spilled so far. */
+  public int runCount() {
+    return runs.size();
+  }
+
+  private Entry[] sortBuffer() {
+    Entry[] entries = buffer.toArray(new Entry[0]);
+    buffer.clear();
+    bufferedBytes = 0;
+    // the parallel sort of objects is a stable merge sort
+    Arrays.parallelSort(entries, ORDER);
+    return entries;
+  }
+
+  private void spill() throws IOException {
+    Entry[] entries = sortBuffer();
+    Path run = Files.createTempFile(tempDirectory, "smart-version-", ".run");
+    runs.add(run);
+    try (DataOutputStream out =
+        new DataOutputStream(
+            new BufferedOutputStream(
+                Channels.newOutputStream(FileChannel.open(run, StandardOpenOption.WRITE)),
+                BUFFER_SIZE))) {
+      for (Entry entry : entries) {
+        byte[] version = entry.version.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(entry.key.length);
+        out.write(entry.key);
+        out.writeInt(version.length);
+        out.write(version);
+      }
+    }
+  }
+
+  /**
+   * Writes the versions added so far in ascending order, each followed by a new line, and clears
+   * the sorter.
+   */
+  public void writeTo(Writer out) throws IOException {
+    if (runs.isEmpty()) {
+      for (Entry entry : sortBuffer()) {
+        writeLine(out, entry.version);
+      }
+      return;
+    }
+
+    if (!buffer.isEmpty()) {
+      spill();
+    }
+    // ties go to the earlier run, which keeps equal versions in the order they were added
+    PriorityQueue<RunReader> queue =
+        new PriorityQueue<>(
+            Comparator.<RunReader, Entry>comparing(reader -> reader.current, ORDER)
+                .thenComparingInt(reader -> reader.index));
+    try {
+      for (int i = 0; i < runs.size(); i++) {
+        advance(new RunReader(runs.get(i), i), queue);
+      }
+      while (!queue.isEmpty()) {
+        RunReader reader = queue.poll();
+        try {
+          writeLine(out, reader.current.version);
+        } catch (IOException | RuntimeException e) {
+          reader.close();
+          throw e;
+        }
+        advance(reader, queue);
+      }
+    } finally {
+      for (RunReader reader : queue) {
+        reader.close();
+      }
+      deleteRuns();
+    }
+  }
+
+  /**
+   * Reads the next entry of a reader that is not in the queue, and puts it back in the queue, or
+   * closes it at the end of its run or on failure.
+   */
+  private static void advance(RunReader reader, PriorityQueue<RunReader> queue)
+      throws IOException {
+    boolean hasNext = false;
+    try {
+      hasNext = reader.next();
+    } finally {
+      if (hasNext) {
+        queue.add(reader);
+      } else {
+        reader.close();
+      }
+    }
+  }
+
+  private static void writeLine(Writer out, String line) throws IOException {
+    out.write(line);
+    out.write('\n');
+  }
+
+  private void deleteRuns() throws IOException {
+    for (Path run : runs) {
+      Files.deleteIfExists(run);
+    }
+    runs.clear();
+  }
+
+  /** Deletes the sorted runs. */
+  @Override
+  public void close() throws IOException {
+    buffer.clear();
+    bufferedBytes = 0;
+    deleteRuns();
+  }
+
+  private record Entry(byte[] key, String version) {}
+
+  private static final class RunReader implements Closeable {
+
+    private final DataInputStream in;
+
+    private final int index;
+
+    private Entry current;
+
+    RunReader(Path run, int index) throws IOException {
+      this.in =
+          new DataInputStream(
+              new BufferedInputStream(
+                  Channels.newInputStream(FileChannel.open(run, StandardOpenOption.READ)),
+                  BUFFER_SIZE));
+      this.index = index;
+    }
+
+    /**
+     * Reads the next entry of the run, returns {@code false} at its end.
+     *
+     * @throws EOFException if the run ends in the middle of an entry
+     */
+    boolean next() throws IOException {
+      int first = in.read();
+      if (first < 0) {
+        current = null;
+        return false;
+      }
+      int keyLength =
+          (first << 24)
+              | (in.readUnsignedByte() << 16)
+              | (in.readUnsignedByte() << 8)
+              | in.readUnsignedByte();
+      byte[] key = new byte[checkLength(keyLength)];
+      in.readFully(key);
+      byte[] version = new byte[checkLength(in.readInt())];
+      in.readFully(version);
+      current = new Entry(key, new String(version, StandardCharsets.UTF_8));
+      return true;
+    }
+
+    private static int checkLength(int length) throws IOException {
+      if (length < 0) {
+        throw new IOException("Corrupted sorted run, negative length: " + length);
+      }
+      return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package xyz.rtfpessoa.smartversion;
+
+import jdk.jfr.FlightRecorder;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Creates the Flight Recorder events of the library once Flight Recorder is initialized, e.g. by
+ * {@code -XX:StartFlightRecording} or by creating a recording.
+ *
+ * <p>The events then follow the usual idiom of creating the event and checking {@code
+ * shouldCommit()}, where the JIT removes the allocation of an event no recording enables. Before
+ * that, no event is created and the event classes are not loaded, as loading the first one
+ * registers it and initializes much of {@code jdk.jfr}, which would make the first parse of every
+ * program far slower. When the runtime has no {@code jdk.jfr} module, e.g. a {@code jlink} image
+ * without it, neither the events nor {@code jdk.jfr} are ever loaded: the callers only refer to the
+ * event classes in code that runs when {@link #enabled()} is true.
+ */
+final class FlightRecorderEvents {
+
+  private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+  private FlightRecorderEvents() {}
+
+  /** Returns whether the events may be recorded, i.e. Flight Recorder is initialized. */
+  static boolean enabled() {
+    return AVAILABLE && FlightRecorder.isInitialized();
+  }
+
+  /** Returns a started cache miss event, or {@code null} if events are not enabled. */
+  static @Nullable VersionCacheEvent beginCacheMiss() {
+    if (!enabled()) {
+      return null;
+    }
+    VersionCacheEvent event = new VersionCacheEvent();
+    event.begin();
+    return event;
+  }
+
+  /** Returns a started index build event, or {@code null} if events are not enabled. */
+  static @Nullable IndexBuildEvent beginIndexBuild() {
+    if (!enabled()) {
+      return null;
+    }
+    IndexBuildEvent event = new IndexBuildEvent();
+    event.begin();
+    return event;
+  }
+
+  /** Commits an event returned by {@link #beginIndexBuild()}, if any. */
+  static void commitIndexBuild(
+      @Nullable IndexBuildEvent event,
+      Class<?> index,
+      Item.ComparisonMode mode,
+      int inputSize,
+      int size) {
+    if (event != null) {
+      event.commit(index, mode, inputSize, size);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package xyz.rtfpessoa.smartversion;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of the construction of a {@link VersionSet}, a {@link VersionRangeIndex}
+ * or a {@link VersionCatalog}, disabled unless the recording settings enable {@code
+ * xyz.rtfpessoa.smartversion.IndexBuild}.
+ */
+@Name("xyz.rtfpessoa.smartversion.IndexBuild")
+@Label("Version Index Build")
+@Category("Smart Version")
+@Description("Construction of a version set, a version range index or a version catalog")
+@Enabled(false)
+final class IndexBuildEvent extends Event {
+
+  @Label("Index")
+  @Description("The class of the index")
+  String index;
+
+  @Label("Mode")
+  String mode;
+
+  @Label("Input Size")
+  @Description("Number of versions or ranges the index is built from")
+  int inputSize;
+
+  @Label("Size")
+  @Description("Number of distinct versions or bounds in the index")
+  int size;
+
+  /** Commits the event when it is enabled and over its threshold. */
+  void commit(Class<?> index, Item.ComparisonMode mode, int inputSize, int size) {
+    if (shouldCommit()) {
+      this.index = index.getSimpleName();
+      this.mode = mode.name();
+      this.inputSize = inputSize;
+      this.size = size;
+      commit();
+    }
+  }
+}
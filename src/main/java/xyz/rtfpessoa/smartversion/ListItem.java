@@ -1,21 +1,108 @@
 package xyz.rtfpessoa.smartversion;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.Objects;
+import java.util.RandomAccess;
 
 /**
  * Represents a version list item. This class is used both for the global item list and for
  * sub-lists (which start with '-(number)' in the version specification).
+ *
+ * <p>The list is built by the parsers and then {@link #freeze() frozen}: every change goes through
+ * {@link #add(int, Item)}, {@link #set(int, Item)} or {@link #remove(int)}, which throw {@link
+ * UnsupportedOperationException} once the list is frozen, so a parsed version can be shared across
+ * threads.
  */
-public class ListItem extends ArrayList<Item> implements Item {
+public class ListItem extends AbstractList<Item> implements Item, RandomAccess {
+
+  private static final Item[] EMPTY = {};
 
   private final ComparisonMode mode;
 
+  private Item[] items = EMPTY;
+
+  private int size;
+
+  private boolean frozen;
+
   public ListItem(ComparisonMode mode) {
     super();
     this.mode = mode;
   }
 
+  ComparisonMode getMode() {
+    return mode;
+  }
+
+  @Override
+  public Item get(int index) {
+    Objects.checkIndex(index, size);
+    return items[index];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void add(int index, Item item) {
+    checkNotFrozen();
+    Objects.checkIndex(index, size + 1);
+    if (size == items.length) {
+      ensureCapacity(Math.max(4, 2 * size));
+    }
+    System.arraycopy(items, index, items, index + 1, size - index);
+    items[index] = item;
+    size++;
+    modCount++;
+  }
+
+  @Override
+  public Item set(int index, Item item) {
+    checkNotFrozen();
+    Item previous = get(index);
+    items[index] = item;
+    return previous;
+  }
+
+  @Override
+  public Item remove(int index) {
+    checkNotFrozen();
+    Item previous = get(index);
+    System.arraycopy(items, index + 1, items, index, size - index - 1);
+    items[--size] = null;
+    modCount++;
+    return previous;
+  }
+
+  void ensureCapacity(int capacity) {
+    if (capacity > items.length) {
+      items = Arrays.copyOf(items, capacity);
+    }
+  }
+
+  /** Makes this list and its sub-lists unmodifiable. */
+  void freeze() {
+    if (frozen) {
+      return;
+    }
+    frozen = true;
+    for (int i = 0; i < size; i++) {
+      if (items[i].getType() == Item.Type.LIST) {
+        ((ListItem) items[i]).freeze();
+      }
+    }
+  }
+
+  private void checkNotFrozen() {
+    if (frozen) {
+      throw new UnsupportedOperationException("The items of a parsed version cannot be changed");
+    }
+  }
+
   @Override
   public Item.Type getType() {
     return Item.Type.LIST;
@@ -68,7 +155,8 @@ public class ListItem extends ArrayList<Item> implements Item {
         return -1; // 1-1 < 1.0.x
 
       case STRING:
-        return 1;
+        // agrees with StringItem: 1-1 > 1-sp, but 1.0.0-beta < 1.0.0.foo outside MAVEN mode
+        return ComparisonMode.MAVEN.equals(mode) ? 1 : -1;
       case COMBINATION:
         return 1; // 1-1 > 1-sp
 
@@ -79,6 +167,10 @@ public class ListItem extends ArrayList<Item> implements Item {
         while (left.hasNext() || right.hasNext()) {
           Item l = left.hasNext() ? left.next() : null;
           Item r = right.hasNext() ? right.next() : null;
+          if (l == r) {
+            // shared items, see LongItem#valueOf
+            continue;
+          }
 
           // if this is shorter, then invert the compare and mul with -1
           int result = l == null ? (r == null ? 0 : -1 * r.compareTo(l)) : l.compareTo(r);
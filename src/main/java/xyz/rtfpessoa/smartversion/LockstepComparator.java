@@ -0,0 +1,149 @@
+package xyz.rtfpessoa.smartversion;
+
+/**
+ * The numeric prefix fast path of {@link SmartVersion#compare(CharSequence, CharSequence,
+ * Item.ComparisonMode)}, which compares two version strings without parsing them when their
+ * leading numbers decide the comparison.
+ *
+ * <p>The strings are scanned in lockstep, one number of their root lists at a time, and the
+ * comparison stops at the first numbers that differ. Those numbers decide it whatever follows them:
+ * the numbers before them are equal and followed by a dot on both sides, so they are kept in place
+ * by normalization, and the higher number is not a zero. A missing number compares like a zero,
+ * which is what the trailing zeros removed by normalization do.
+ *
+ * <p>The comparison is {@link #UNDECIDED} when a token before the deciding one is not a plain
+ * number, or when equal numbers are followed by something else than a dot on either side.
+ * Qualifiers and the normalization of the items around them are left to the parsers, so every
+ * comparison that reaches a qualifier is undecided.
+ */
+final class LockstepComparator {
+
+  /** Returned by {@link #compare} when the versions have to be parsed. */
+  static final int UNDECIDED = Integer.MIN_VALUE;
+
+  /** Numbers with more digits are parsed into a {@link BigIntegerItem}. */
+  private static final int MAX_LONGITEM_LENGTH = 18;
+
+  private LockstepComparator() {}
+
+  /**
+   * Returns the same value as comparing the parsed versions, or {@link #UNDECIDED}. Nothing is
+   * allocated.
+   */
+  static int compare(CharSequence a, CharSequence b, Item.ComparisonMode mode) {
+    boolean maven = Item.ComparisonMode.MAVEN.equals(mode);
+    // outside MAVEN mode the build metadata is ignored
+    int aEnd = maven ? a.length() : buildMetadataStart(a);
+    int bEnd = maven ? b.length() : buildMetadataStart(b);
+    int i = 0;
+    int j = 0;
+    while (true) {
+      if (!maven) {
+        // empty parts add no item outside MAVEN mode, while they add a zero in MAVEN mode
+        i = skipDots(a, i, aEnd);
+        j = skipDots(b, j, bEnd);
+      }
+      if (i >= aEnd && j >= bEnd) {
+        return 0;
+      }
+
+      int aStop = numberEnd(a, i, aEnd, maven);
+      int bStop = numberEnd(b, j, bEnd, maven);
+      if (aStop < 0 || bStop < 0) {
+        return UNDECIDED;
+      }
+      int result = compareNumbers(a, i, aStop, b, j, bStop);
+      if (result != 0) {
+        return result;
+      }
+      if (!endsPart(a, aStop, aEnd) || !endsPart(b, bStop, bEnd)) {
+        // 1.0-1 vs 1.0.1, the items after the numbers are not in the root list
+        return UNDECIDED;
+      }
+      i = aStop + 1;
+      j = bStop + 1;
+    }
+  }
+
+  private static int buildMetadataStart(CharSequence buf) {
+    int length = buf.length();
+    for (int i = 0; i < length; i++) {
+      if (buf.charAt(i) == '+') {
+        return i;
+      }
+    }
+    return length;
+  }
+
+  private static int skipDots(CharSequence buf, int from, int end) {
+    int i = from;
+    while (i < end && buf.charAt(i) == '.') {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Returns the end of the digits of the token starting at {@code start}, which is {@code start}
+   * for a missing token and for an empty token followed by a dot, or -1 when the token is not a
+   * number.
+   */
+  private static int numberEnd(CharSequence buf, int start, int end, boolean maven) {
+    if (start >= end) {
+      return start;
+    }
+    int i = start;
+    while (i < end && isAsciiDigit(buf.charAt(i))) {
+      i++;
+    }
+    if (i == start && buf.charAt(start) != '.') {
+      return -1;
+    }
+    if (maven && i < end && buf.charAt(i) >= 0x80 && Character.isDigit(buf.charAt(i))) {
+      // other digits are part of the number in MAVEN mode
+      return -1;
+    }
+    return i;
+  }
+
+  private static boolean endsPart(CharSequence buf, int stop, int end) {
+    return stop >= end || buf.charAt(stop) == '.';
+  }
+
+  /** Compares the digits in {@code [aStart, aEnd)} and {@code [bStart, bEnd)} as numbers. */
+  private static int compareNumbers(
+      CharSequence a, int aStart, int aEnd, CharSequence b, int bStart, int bEnd) {
+    int aSignificant = skipZeros(a, aStart, aEnd);
+    int bSignificant = skipZeros(b, bStart, bEnd);
+    if ((aSignificant == aEnd && aEnd - aStart > MAX_LONGITEM_LENGTH)
+        || (bSignificant == bEnd && bEnd - bStart > MAX_LONGITEM_LENGTH)) {
+      // a long run of zeros is a BigIntegerItem, which is higher than any LongItem
+      return UNDECIDED;
+    }
+    int aLength = aEnd - aSignificant;
+    int bLength = bEnd - bSignificant;
+    if (aLength != bLength) {
+      return aLength < bLength ? -1 : 1;
+    }
+    for (int k = 0; k < aLength; k++) {
+      char x = a.charAt(aSignificant + k);
+      char y = b.charAt(bSignificant + k);
+      if (x != y) {
+        return x < y ? -1 : 1;
+      }
+    }
+    return 0;
+  }
+
+  private static int skipZeros(CharSequence buf, int from, int end) {
+    int i = from;
+    while (i < end && buf.charAt(i) == '0') {
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isAsciiDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+}
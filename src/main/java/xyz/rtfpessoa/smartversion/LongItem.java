@@ -1,9 +1,29 @@
 package xyz.rtfpessoa.smartversion;
 
-/** Represents a numeric item in the version item list that can be represented with a long. */
+/**
+ * Represents a numeric item in the version item list that can be represented with a long.
+ *
+ * <p>The parsers share one instance of each small number, see {@link #valueOf(long)}.
+ */
 public record LongItem(long value) implements Item {
 
-  public static final LongItem ZERO = new LongItem(0);
+  /** Numbers below this one are shared. */
+  private static final int POOL_SIZE = 256;
+
+  private static final LongItem[] POOL = new LongItem[POOL_SIZE];
+
+  static {
+    for (int i = 0; i < POOL_SIZE; i++) {
+      POOL[i] = new LongItem(i);
+    }
+  }
+
+  public static final LongItem ZERO = POOL[0];
+
+  /** Returns the item of a number, which is a shared instance for small numbers. */
+  public static LongItem valueOf(long value) {
+    return value >= 0 && value < POOL_SIZE ? POOL[(int) value] : new LongItem(value);
+  }
 
   @Override
   public Item.Type getType() {
@@ -1,7 +1,284 @@
 package xyz.rtfpessoa.smartversion;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Command line interface over newline-delimited versions, read from the given files or from the
+ * standard input. Blank lines are skipped.
+ *
+ * <pre>
+ * smart-version [--mode MAVEN|SEMVER|MIXED] &lt;command&gt; [files...]
+ *
+ *   sort                 prints the versions in ascending order
+ *   max, min             prints the highest or the lowest version
+ *   dedupe               prints the first of the versions that compare as equal
+ *   filter &lt;constraint&gt;  prints the versions that match the constraint
+ *   check                fails on the first version lower than the previous one
+ * </pre>
+ *
+ * <p>The commands order the versions by their {@link SortKey sort keys}, so that the output of
+ * {@code sort} passes {@code check} and starts with the output of {@code min}. That is the order of
+ * {@link SmartVersion#compareTo(SmartVersion)}, except where {@code compareTo} is not transitive.
+ *
+ * <p>The commands stream the versions: {@code max} and {@code min} keep a single version, {@code
+ * dedupe} only keeps the sort keys of the distinct versions, and {@code sort} spills sorted runs
+ * to temporary files with an {@link ExternalSorter}.
+ */
 public class Main {
-  public static void main(String[] args) {
-    System.out.println("Hello world!");
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private static final int EXIT_OK = 0;
+
+  private static final int EXIT_FAILURE = 1;
+
+  private static final int EXIT_USAGE = 2;
+
+  private static final String USAGE =
+      "usage: smart-version [--mode MAVEN|SEMVER|MIXED] "
+          + "(sort | max | min | dedupe | filter <constraint> | check) [files...]";
+
+  public static void main(String[] args) throws IOException {
+    int status =
+        run(
+            args,
+            Channels.newChannel(System.in),
+            new FileOutputStream(FileDescriptor.out).getChannel(),
+            System.err);
+    if (status != EXIT_OK) {
+      System.exit(status);
+    }
+  }
+
+  /** Runs a command and returns its exit status. */
+  static int run(
+      String[] args, ReadableByteChannel stdin, WritableByteChannel stdout, PrintStream stderr)
+      throws IOException {
+    Item.ComparisonMode mode = Item.ComparisonMode.MAVEN;
+    int index = 0;
+    if (index < args.length && args[index].equals("--mode")) {
+      if (index + 1 == args.length) {
+        return usage(stderr, "missing mode");
+      }
+      try {
+        mode = Item.ComparisonMode.valueOf(args[index + 1].toUpperCase(Locale.ENGLISH));
+      } catch (IllegalArgumentException e) {
+        return usage(stderr, "unknown mode: " + args[index + 1]);
+      }
+      index += 2;
+    }
+    if (index == args.length) {
+      return usage(stderr, "missing command");
+    }
+
+    String command = args[index++];
+    VersionConstraint constraint = null;
+    if (command.equals("filter")) {
+      if (index == args.length) {
+        return usage(stderr, "missing constraint");
+      }
+      try {
+        constraint = VersionConstraint.parse(args[index++], mode);
+      } catch (IllegalArgumentException e) {
+        return usage(stderr, e.getMessage());
+      }
+    }
+    List<String> files = Arrays.asList(args).subList(index, args.length);
+
+    Writer out =
+        new BufferedWriter(
+            Channels.newWriter(stdout, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE),
+            BUFFER_SIZE);
+    Input input = new Input(files, stdin);
+    int status;
+    try {
+      switch (command) {
+        case "sort":
+          status = sort(input, mode, out);
+          break;
+        case "max":
+          status = extreme(input, mode, out, 1);
+          break;
+        case "min":
+          status = extreme(input, mode, out, -1);
+          break;
+        case "dedupe":
+          status = dedupe(input, mode, out);
+          break;
+        case "filter":
+          status = filter(input, mode, constraint, out);
+          break;
+        case "check":
+          status = check(input, mode, stderr);
+          break;
+        default:
+          return usage(stderr, "unknown command: " + command);
+      }
+    } catch (NoSuchFileException e) {
+      stderr.println("smart-version: no such file: " + e.getFile());
+      status = EXIT_FAILURE;
+    }
+    out.flush();
+    return status;
+  }
+
+  private static int usage(PrintStream stderr, String message) {
+    stderr.println("smart-version: " + message);
+    stderr.println(USAGE);
+    return EXIT_USAGE;
+  }
+
+  private static int sort(Input input, Item.ComparisonMode mode, Writer out) throws IOException {
+    try (ExternalSorter sorter = new ExternalSorter(mode)) {
+      input.forEach(
+          line -> {
+            sorter.add(line);
+            return true;
+          });
+      sorter.writeTo(out);
+    }
+    return EXIT_OK;
+  }
+
+  /** Prints the highest version for {@code sign} 1, the lowest for -1, the first one on ties. */
+  private static int extreme(Input input, Item.ComparisonMode mode, Writer out, int sign)
+      throws IOException {
+    String[] best = new String[1];
+    byte[][] bestKey = new byte[1][];
+    input.forEach(
+        line -> {
+          byte[] key = new SmartVersion(line, mode).toSortKey();
+          if (best[0] == null || sign * SortKey.compare(key, bestKey[0]) > 0) {
+            best[0] = line;
+            bestKey[0] = key;
+          }
+          return true;
+        });
+    if (best[0] != null) {
+      writeLine(out, best[0]);
+    }
+    return EXIT_OK;
+  }
+
+  private static int dedupe(Input input, Item.ComparisonMode mode, Writer out) throws IOException {
+    Set<ByteBuffer> seen = new HashSet<>();
+    input.forEach(
+        line -> {
+          if (seen.add(ByteBuffer.wrap(new SmartVersion(line, mode).toSortKey()))) {
+            writeLine(out, line);
+          }
+          return true;
+        });
+    return EXIT_OK;
+  }
+
+  private static int filter(
+      Input input, Item.ComparisonMode mode, VersionConstraint constraint, Writer out)
+      throws IOException {
+    input.forEach(
+        line -> {
+          if (constraint.test(new SmartVersion(line, mode))) {
+            writeLine(out, line);
+          }
+          return true;
+        });
+    return EXIT_OK;
+  }
+
+  private static int check(Input input, Item.ComparisonMode mode, PrintStream stderr)
+      throws IOException {
+    byte[][] previous = new byte[1][];
+    String[] disorder = new String[1];
+    input.forEach(
+        line -> {
+          byte[] key = new SmartVersion(line, mode).toSortKey();
+          if (previous[0] != null && SortKey.compare(key, previous[0]) < 0) {
+            disorder[0] = line;
+            return false;
+          }
+          previous[0] = key;
+          return true;
+        });
+    if (disorder[0] != null) {
+      stderr.println("smart-version: disorder: " + disorder[0]);
+      return EXIT_FAILURE;
+    }
+    return EXIT_OK;
+  }
+
+  private static void writeLine(Writer out, String line) throws IOException {
+    out.write(line);
+    out.write('\n');
+  }
+
+  private interface LineConsumer {
+    /** Returns whether to keep reading. */
+    boolean accept(String line) throws IOException;
+  }
+
+  /** The lines of the given files, or of the standard input when there are none or for "-". */
+  private static final class Input {
+
+    private final List<String> files;
+
+    private final ReadableByteChannel stdin;
+
+    Input(List<String> files, ReadableByteChannel stdin) {
+      this.files = files.isEmpty() ? List.of("-") : files;
+      this.stdin = stdin;
+    }
+
+    void forEach(LineConsumer consumer) throws IOException {
+      for (String file : files) {
+        boolean more;
+        if (file.equals("-")) {
+          more = read(stdin, consumer);
+        } else {
+          try (FileChannel channel = FileChannel.open(Path.of(file), StandardOpenOption.READ)) {
+            more = read(channel, consumer);
+          }
+        }
+        if (!more) {
+          return;
+        }
+      }
+    }
+
+    /** Returns whether to keep reading. */
+    private static boolean read(ReadableByteChannel channel, LineConsumer consumer)
+        throws IOException {
+      BufferedReader reader =
+          new BufferedReader(
+              Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE),
+              BUFFER_SIZE);
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (!line.isEmpty() && !consumer.accept(line)) {
+          return false;
+        }
+      }
+      return true;
+    }
   }
 }
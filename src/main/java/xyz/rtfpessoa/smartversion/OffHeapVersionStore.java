@@ -0,0 +1,196 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An append-only store of versions kept outside of the Java heap, addressed by {@code long}
+ * handles.
+ *
+ * <p>Each version is stored as its {@link SortKey sort key} followed by its {@link
+ * SmartVersion#writeTo(ByteBuffer) binary form}, in direct buffers allocated in chunks. The heap
+ * only holds the chunks and the handles the caller keeps: {@link #compare(long, long)} compares the
+ * keys in place, 8 bytes at a time, and {@link #get(long)} decodes a version on demand. Where
+ * {@code compareTo} is not transitive (see {@link SortKey}) the order is the one of the keys.
+ *
+ * <p>Adding versions is synchronized. A handle can be read from any thread that got it from the
+ * thread that added the version through a happens-before edge, e.g. a concurrent collection.
+ *
+ * <p>Direct buffers cannot be freed explicitly: {@link #close()} invalidates the handles and drops
+ * the chunks, whose memory is released when they are garbage collected.
+ */
+public final class OffHeapVersionStore implements Closeable {
+
+  /** The default size of the chunks, in bytes. */
+  public static final int DEFAULT_CHUNK_SIZE = 64 << 20;
+
+  private static final int MODE_MASK = 0x03;
+
+  private final int chunkSize;
+
+  /** Replaced when it grows, the chunks of the handles already returned stay in place. */
+  private volatile ByteBuffer[] chunks = new ByteBuffer[4];
+
+  private int chunkCount;
+
+  private int size;
+
+  private long memoryUsed;
+
+  private volatile boolean closed;
+
+  public OffHeapVersionStore() {
+    this(DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * @param chunkSize the size of the direct buffers the versions are stored in, a larger version
+   *     gets a chunk of its own
+   */
+  public OffHeapVersionStore(int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    this.chunkSize = chunkSize;
+  }
+
+  /** Stores a version and returns its handle. */
+  public synchronized long add(SmartVersion version) {
+    checkOpen();
+    byte[] key = version.toSortKey();
+    byte[] encoded = VersionSerializer.serialize(version, true);
+    int length = 2 * Integer.BYTES + key.length + encoded.length;
+
+    ByteBuffer chunk = chunkCount == 0 ? null : chunks[chunkCount - 1];
+    if (chunk == null || chunk.remaining() < length) {
+      chunk = newChunk(Math.max(chunkSize, length));
+    }
+    int offset = chunk.position();
+    chunk.putInt(key.length).put(key).putInt(encoded.length).put(encoded);
+    size++;
+    return handle(chunkCount - 1, offset);
+  }
+
+  private ByteBuffer newChunk(int capacity) {
+    if (chunkCount == chunks.length) {
+      chunks = Arrays.copyOf(chunks, 2 * chunkCount);
+    }
+    ByteBuffer chunk = ByteBuffer.allocateDirect(capacity);
+    chunks[chunkCount++] = chunk;
+    memoryUsed += capacity;
+    return chunk;
+  }
+
+  /** Stores the versions and returns their handles, in the same order. */
+  public synchronized long[] addAll(Collection<SmartVersion> versions) {
+    long[] handles = new long[versions.size()];
+    int i = 0;
+    for (SmartVersion version : versions) {
+      handles[i++] = add(version);
+    }
+    return handles;
+  }
+
+  /** Parses and stores the versions and returns their handles, in the same order. */
+  public synchronized long[] parseAll(Collection<String> versions, Item.ComparisonMode mode) {
+    long[] handles = new long[versions.size()];
+    int i = 0;
+    for (String version : versions) {
+      handles[i++] = add(new SmartVersion(version, mode));
+    }
+    return handles;
+  }
+
+  private static long handle(int chunk, int offset) {
+    return ((long) chunk << Integer.SIZE) | offset;
+  }
+
+  /** Returns the chunk of a handle, whose offset is the lower half of the handle. */
+  private ByteBuffer chunk(long handle) {
+    checkOpen();
+    int chunk = (int) (handle >>> Integer.SIZE);
+    int offset = (int) handle;
+    ByteBuffer[] current = chunks;
+    if (handle < 0 || chunk >= current.length || current[chunk] == null || offset < 0) {
+      throw new IllegalArgumentException("Invalid handle: " + handle);
+    }
+    return current[chunk];
+  }
+
+  /** Decodes the version of a handle. */
+  public SmartVersion get(long handle) {
+    ByteBuffer chunk = chunk(handle);
+    int offset = (int) handle;
+    int encoded = offset + 2 * Integer.BYTES + chunk.getInt(offset);
+    return VersionSerializer.deserialize(chunk.duplicate().position(encoded));
+  }
+
+  /**
+   * Compares the versions of two handles, without decoding them.
+   *
+   * @throws IllegalArgumentException if the versions are parsed in different modes
+   */
+  public int compare(long handle, long otherHandle) {
+    ByteBuffer a = chunk(handle);
+    ByteBuffer b = chunk(otherHandle);
+    int aOffset = (int) handle;
+    int bOffset = (int) otherHandle;
+    int aLength = a.getInt(aOffset);
+    int bLength = b.getInt(bOffset);
+    aOffset += Integer.BYTES;
+    bOffset += Integer.BYTES;
+    if (mode(a, aOffset + aLength) != mode(b, bOffset + bLength)) {
+      throw new IllegalArgumentException("Cannot compare versions from different modes");
+    }
+
+    int length = Math.min(aLength, bLength);
+    int i = 0;
+    for (; i + Long.BYTES <= length; i += Long.BYTES) {
+      long x = a.getLong(aOffset + i);
+      long y = b.getLong(bOffset + i);
+      if (x != y) {
+        // big-endian, so the unsigned order of the words is the order of their bytes
+        return Long.compareUnsigned(x, y) < 0 ? -1 : 1;
+      }
+    }
+    for (; i < length; i++) {
+      int x = a.get(aOffset + i) & 0xFF;
+      int y = b.get(bOffset + i) & 0xFF;
+      if (x != y) {
+        return x < y ? -1 : 1;
+      }
+    }
+    return Integer.compare(aLength, bLength);
+  }
+
+  /** Returns the mode of the binary form that follows a key, see {@link VersionSerializer}. */
+  private static int mode(ByteBuffer chunk, int keyEnd) {
+    return chunk.get(keyEnd + Integer.BYTES + 1) & MODE_MASK;
+  }
+
+  /** Returns the number of stored versions. */
+  public synchronized int size() {
+    return size;
+  }
+
+  /** Returns the off-heap memory allocated so far, in bytes. */
+  public synchronized long memoryUsed() {
+    return memoryUsed;
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("The version store is closed");
+    }
+  }
+
+  /** Invalidates the handles and drops the chunks. */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    chunks = new ByteBuffer[0];
+    chunkCount = 0;
+  }
+}
@@ -0,0 +1,453 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.math.BigInteger;
+
+/**
+ *
+ *
+ * <h2>Flat encoding of a parsed version in a single {@code long[]}.</h2>
+ *
+ * <p>The item tree is written in pre-order, one token per item. Every token starts with a header
+ * whose 4 most significant bits hold the item type:
+ *
+ * <ul>
+ *   <li>LONG: the value is stored in the header itself (it always has at most 18 digits);
+ *   <li>BIGINTEGER: the header holds the number of words that follow, with the magnitude in
+ *       big-endian order;
+ *   <li>STRING: the header holds the qualifier rank and the number of characters, followed by the
+ *       characters packed 4 per word;
+ *   <li>COMBINATION: followed by its STRING token and its number token;
+ *   <li>LIST: the header holds the comparison mode and the number of words used by the items of
+ *       the list, which follow it.
+ * </ul>
+ *
+ * <p>The array always starts with the root LIST token, and {@link #compare(long[], long[])} walks
+ * two such arrays applying the same rules as {@link ListItem#compareTo(Item)}, so it returns the
+ * same results as {@link SmartVersion#compareTo(SmartVersion)} without any object tree.
+ */
+public final class PackedVersion {
+
+  private static final int TAG_SHIFT = 60;
+
+  private static final long PAYLOAD_MASK = (1L << TAG_SHIFT) - 1;
+
+  private static final int TAG_LONG = 1;
+
+  private static final int TAG_BIGINTEGER = 2;
+
+  private static final int TAG_STRING = 3;
+
+  private static final int TAG_COMBINATION = 4;
+
+  private static final int TAG_LIST = 5;
+
+  private static final int STRING_RANK_SHIFT = 32;
+
+  private static final int LIST_MODE_SHIFT = 56;
+
+  private static final long LIST_LENGTH_MASK = (1L << LIST_MODE_SHIFT) - 1;
+
+  private static final Item.ComparisonMode[] MODES = Item.ComparisonMode.values();
+
+  private PackedVersion() {}
+
+  /** Encodes the parsed items of a version. */
+  public static long[] pack(SmartVersion version) {
+    return pack(version.getItems());
+  }
+
+  static long[] pack(ListItem items) {
+    Writer writer = new Writer(size(items));
+    writer.write(items);
+    return writer.words;
+  }
+
+  /** Returns the comparison mode the packed version was parsed with. */
+  public static Item.ComparisonMode mode(long[] packed) {
+    return listMode(packed[0]);
+  }
+
+  /** Rebuilds the item tree of a packed version. */
+  static ListItem unpack(long[] packed) {
+    return (ListItem) read(packed, 0);
+  }
+
+  /** Returns the canonical representation of a packed version. */
+  public static String toCanonical(long[] packed) {
+    return unpack(packed).toString();
+  }
+
+  /**
+   * Compares two packed versions.
+   *
+   * @return the same value as {@link SmartVersion#compareTo(SmartVersion)} for the versions they
+   *     were packed from
+   * @throws IllegalArgumentException if the versions were packed in different modes
+   */
+  public static int compare(long[] a, long[] b) {
+    if (listMode(a[0]) != listMode(b[0])) {
+      throw new IllegalArgumentException("Cannot compare versions from different modes");
+    }
+    return compareLists(a, 0, b, 0);
+  }
+
+  private static int size(Item item) {
+    switch (item.getType()) {
+      case LONG:
+        return 1;
+      case BIGINTEGER:
+        return 1 + magnitude(((BigIntegerItem) item).value()).length;
+      case STRING:
+        return 1 + (((StringItem) item).value().length() + 3) / 4;
+      case COMBINATION:
+        CombinationItem combination = (CombinationItem) item;
+        return 1 + size(combination.getStringPart()) + size(combination.getDigitPart());
+      case LIST:
+        int size = 1;
+        for (Item i : (ListItem) item) {
+          size += size(i);
+        }
+        return size;
+      default:
+        throw new IllegalStateException("invalid item: " + item.getClass());
+    }
+  }
+
+  /** Splits a non-negative number in big-endian 64 bit words, without leading zero words. */
+  private static long[] magnitude(BigInteger value) {
+    int words = (value.bitLength() + 63) / 64;
+    long[] magnitude = new long[words];
+    for (int i = 0; i < words; i++) {
+      magnitude[words - 1 - i] = value.shiftRight(i * 64).longValue();
+    }
+    return magnitude;
+  }
+
+  private static final class Writer {
+    final long[] words;
+
+    int position;
+
+    Writer(int size) {
+      words = new long[size];
+    }
+
+    void write(Item item) {
+      switch (item.getType()) {
+        case LONG:
+          words[position++] = header(TAG_LONG, ((LongItem) item).value());
+          break;
+        case BIGINTEGER:
+          long[] magnitude = magnitude(((BigIntegerItem) item).value());
+          words[position++] = header(TAG_BIGINTEGER, magnitude.length);
+          System.arraycopy(magnitude, 0, words, position, magnitude.length);
+          position += magnitude.length;
+          break;
+        case STRING:
+          StringItem string = (StringItem) item;
+          String value = string.value();
+          int rank = string.rank();
+          long payload = ((long) rank << STRING_RANK_SHIFT) | value.length();
+          words[position++] = header(TAG_STRING, payload);
+          for (int i = 0; i < value.length(); i += 4) {
+            long word = 0;
+            for (int j = i; j < i + 4; j++) {
+              word = (word << 16) | (j < value.length() ? value.charAt(j) : 0);
+            }
+            words[position++] = word;
+          }
+          break;
+        case COMBINATION:
+          CombinationItem combination = (CombinationItem) item;
+          words[position++] = header(TAG_COMBINATION, 0);
+          write(combination.getStringPart());
+          write(combination.getDigitPart());
+          break;
+        case LIST:
+          ListItem list = (ListItem) item;
+          int start = position++;
+          for (Item i : list) {
+            write(i);
+          }
+          long length = position - start - 1;
+          long mode = list.getMode().ordinal();
+          words[start] = header(TAG_LIST, (mode << LIST_MODE_SHIFT) | length);
+          break;
+        default:
+          throw new IllegalStateException("invalid item: " + item.getClass());
+      }
+    }
+  }
+
+  private static long header(int tag, long payload) {
+    return ((long) tag << TAG_SHIFT) | payload;
+  }
+
+  private static int tag(long header) {
+    return (int) (header >>> TAG_SHIFT);
+  }
+
+  private static long payload(long header) {
+    return header & PAYLOAD_MASK;
+  }
+
+  private static Item.ComparisonMode listMode(long header) {
+    return MODES[(int) (payload(header) >>> LIST_MODE_SHIFT)];
+  }
+
+  private static int listEnd(long[] words, int position) {
+    return position + 1 + (int) (payload(words[position]) & LIST_LENGTH_MASK);
+  }
+
+  private static int stringLength(long header) {
+    return (int) payload(header);
+  }
+
+  private static int stringRank(long header) {
+    return (int) (payload(header) >>> STRING_RANK_SHIFT);
+  }
+
+  /** Returns the position right after the token at {@code position}. */
+  private static int next(long[] words, int position) {
+    long header = words[position];
+    switch (tag(header)) {
+      case TAG_LONG:
+        return position + 1;
+      case TAG_BIGINTEGER:
+        return position + 1 + (int) payload(header);
+      case TAG_STRING:
+        return position + 1 + (stringLength(header) + 3) / 4;
+      case TAG_COMBINATION:
+        return next(words, next(words, position + 1));
+      case TAG_LIST:
+        return listEnd(words, position);
+      default:
+        throw new IllegalStateException("invalid token: " + Long.toHexString(header));
+    }
+  }
+
+  private static Item read(long[] packed, int position) {
+    long header = packed[position];
+    switch (tag(header)) {
+      case TAG_LONG:
+        return LongItem.valueOf(payload(header));
+      case TAG_BIGINTEGER:
+        int words = (int) payload(header);
+        byte[] magnitude = new byte[words * 8];
+        for (int i = 0; i < magnitude.length; i++) {
+          magnitude[i] = (byte) (packed[position + 1 + i / 8] >>> (8 * (7 - i % 8)));
+        }
+        return new BigIntegerItem(new BigInteger(1, magnitude));
+      case TAG_STRING:
+        // the mode of a string is the mode of the list that contains it, see readList
+        throw new IllegalStateException("string token outside of a list");
+      case TAG_LIST:
+        Item.ComparisonMode mode = listMode(header);
+        ListItem list = new ListItem(mode);
+        int end = listEnd(packed, position);
+        for (int i = position + 1; i < end; i = next(packed, i)) {
+          list.add(readItem(packed, i, mode));
+        }
+        return list;
+      default:
+        throw new IllegalStateException("invalid token: " + Long.toHexString(header));
+    }
+  }
+
+  private static Item readItem(long[] words, int position, Item.ComparisonMode mode) {
+    switch (tag(words[position])) {
+      case TAG_STRING:
+        return StringItem.valueOf(readString(words, position), mode);
+      case TAG_COMBINATION:
+        int digitPosition = next(words, position + 1);
+        return CombinationItem.of(
+            StringItem.valueOf(readString(words, position + 1), mode), read(words, digitPosition));
+      default:
+        return read(words, position);
+    }
+  }
+
+  private static String readString(long[] words, int position) {
+    char[] chars = new char[stringLength(words[position])];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = charAt(words, position, i);
+    }
+    return new String(chars);
+  }
+
+  private static char charAt(long[] words, int position, int index) {
+    long word = words[position + 1 + index / 4];
+    return (char) (word >>> (16 * (3 - index % 4)));
+  }
+
+  /** Same as {@link ListItem#compareTo(Item)} with two lists. */
+  private static int compareLists(long[] a, int i, long[] b, int j) {
+    int aEnd = listEnd(a, i);
+    int bEnd = listEnd(b, j);
+    Item.ComparisonMode aMode = listMode(a[i]);
+    Item.ComparisonMode bMode = listMode(b[j]);
+    i++;
+    j++;
+    while (i < aEnd || j < bEnd) {
+      int result;
+      if (i >= aEnd) {
+        // if this is shorter, then invert the compare and mul with -1
+        result = -1 * compareToNull(b, j, bMode);
+      } else if (j >= bEnd) {
+        result = compareToNull(a, i, aMode);
+      } else {
+        result = compareItems(a, i, aMode, b, j, bMode);
+      }
+      if (result != 0) {
+        return result;
+      }
+      if (i < aEnd) {
+        i = next(a, i);
+      }
+      if (j < bEnd) {
+        j = next(b, j);
+      }
+    }
+    return 0;
+  }
+
+  /** Same as {@link Item#compareTo(Item)} with a {@code null} item. */
+  private static int compareToNull(long[] a, int i, Item.ComparisonMode mode) {
+    long header = a[i];
+    switch (tag(header)) {
+      case TAG_LONG:
+        return payload(header) == 0 ? 0 : 1;
+      case TAG_BIGINTEGER:
+        return isZero(a, i) ? 0 : 1;
+      case TAG_STRING:
+        return StringItem.compareQualifierToNull(readString(a, i), stringRank(header), mode);
+      case TAG_COMBINATION:
+        return compareToNull(a, i + 1, mode);
+      case TAG_LIST:
+        if (!Item.ComparisonMode.MAVEN.equals(listMode(header))) {
+          return -1;
+        }
+        // Compare the entire list of items with null - not just the first one, MNG-6964
+        int end = listEnd(a, i);
+        for (int k = i + 1; k < end; k = next(a, k)) {
+          int result = compareToNull(a, k, Item.ComparisonMode.MAVEN);
+          if (result != 0) {
+            return result;
+          }
+        }
+        return 0;
+      default:
+        throw new IllegalStateException("invalid token: " + Long.toHexString(header));
+    }
+  }
+
+  private static int compareItems(
+      long[] a, int i, Item.ComparisonMode aMode, long[] b, int j, Item.ComparisonMode bMode) {
+    int aTag = tag(a[i]);
+    int bTag = tag(b[j]);
+    switch (aTag) {
+      case TAG_LONG:
+        switch (bTag) {
+          case TAG_LONG:
+            return Long.compare(payload(a[i]), payload(b[j]));
+          case TAG_BIGINTEGER:
+            return -1;
+          default:
+            return 1; // 1.1 > 1-sp, 1.1 > 1-1
+        }
+
+      case TAG_BIGINTEGER:
+        return bTag == TAG_BIGINTEGER ? compareBigIntegers(a, i, b, j) : 1;
+
+      case TAG_STRING:
+        switch (bTag) {
+          case TAG_LONG:
+          case TAG_BIGINTEGER:
+            return -1; // 1.any < 1.1 ?
+          case TAG_STRING:
+            return compareStrings(a, i, b, j);
+          case TAG_COMBINATION:
+            int result = compareStrings(a, i, b, j + 1);
+            return result == 0 ? -1 : result;
+          default:
+            return Item.ComparisonMode.MAVEN.equals(aMode) ? -1 : 1; // 1.any < 1-1
+        }
+
+      case TAG_COMBINATION:
+        switch (bTag) {
+          case TAG_STRING:
+            int result = compareStrings(a, i + 1, b, j);
+            // X1 > X
+            return result == 0 ? 1 : result;
+          case TAG_COMBINATION:
+            result = compareStrings(a, i + 1, b, j + 1);
+            if (result == 0) {
+              return compareItems(a, next(a, i + 1), aMode, b, next(b, j + 1), bMode);
+            }
+            return result;
+          default:
+            return -1;
+        }
+
+      case TAG_LIST:
+        switch (bTag) {
+          case TAG_LONG:
+          case TAG_BIGINTEGER:
+            return -1; // 1-1 < 1.0.x
+          case TAG_LIST:
+            return compareLists(a, i, b, j);
+          case TAG_STRING:
+            return Item.ComparisonMode.MAVEN.equals(aMode) ? 1 : -1;
+          default:
+            return 1; // 1-1 > 1-sp
+        }
+
+      default:
+        throw new IllegalStateException("invalid token: " + Long.toHexString(a[i]));
+    }
+  }
+
+  private static boolean isZero(long[] a, int i) {
+    int end = next(a, i);
+    for (int k = i + 1; k < end; k++) {
+      if (a[k] != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int compareBigIntegers(long[] a, int i, long[] b, int j) {
+    int aWords = (int) payload(a[i]);
+    int bWords = (int) payload(b[j]);
+    if (aWords != bWords) {
+      return aWords < bWords ? -1 : 1;
+    }
+    for (int k = 1; k <= aWords; k++) {
+      int result = Long.compareUnsigned(a[i + k], b[j + k]);
+      if (result != 0) {
+        return result < 0 ? -1 : 1;
+      }
+    }
+    return 0;
+  }
+
+  private static int compareStrings(long[] a, int i, long[] b, int j) {
+    int aRank = stringRank(a[i]);
+    int bRank = stringRank(b[j]);
+    if (aRank != bRank || aRank != StringItem.UNKNOWN_QUALIFIER_RANK) {
+      return aRank - bRank;
+    }
+    int aLength = stringLength(a[i]);
+    int bLength = stringLength(b[j]);
+    int length = Math.min(aLength, bLength);
+    for (int k = 0; k < length; k++) {
+      char x = charAt(a, i, k);
+      char y = charAt(b, j, k);
+      if (x != y) {
+        return x - y;
+      }
+    }
+    return aLength - bLength;
+  }
+}
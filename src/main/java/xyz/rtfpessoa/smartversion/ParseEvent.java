@@ -0,0 +1,71 @@
+package xyz.rtfpessoa.smartversion;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of the parsing of a version into its items, disabled unless the recording
+ * settings enable {@code xyz.rtfpessoa.smartversion.Parse}.
+ */
+@Name("xyz.rtfpessoa.smartversion.Parse")
+@Label("Version Parse")
+@Category("Smart Version")
+@Description("Parsing of a version string into its items")
+@Enabled(false)
+@StackTrace(false)
+final class ParseEvent extends Event {
+
+  @Label("Mode")
+  String mode;
+
+  @Label("Input Length")
+  int inputLength;
+
+  @Label("Item Count")
+  @Description("Number of items of the version, including the items of its sub-lists")
+  int itemCount;
+
+  @Label("Big Integer")
+  @Description("Whether a number does not fit in a long")
+  boolean bigInteger;
+
+  /** Parses the version, committing the event when it is enabled and over its threshold. */
+  static ListItem parse(String version, Item.ComparisonMode mode) {
+    ParseEvent event = new ParseEvent();
+    event.begin();
+    ListItem items = VersionParser.parse(version, mode);
+    if (event.shouldCommit()) {
+      event.mode = mode.name();
+      event.inputLength = version.length();
+      event.count(items);
+      event.commit();
+    }
+    return items;
+  }
+
+  private void count(ListItem list) {
+    for (Item item : list) {
+      itemCount++;
+      switch (item.getType()) {
+        case BIGINTEGER:
+          bigInteger = true;
+          break;
+        case COMBINATION:
+          if (((CombinationItem) item).getDigitPart().getType() == Item.Type.BIGINTEGER) {
+            bigInteger = true;
+          }
+          break;
+        case LIST:
+          count((ListItem) item);
+          break;
+        default:
+          break;
+      }
+    }
+  }
+}
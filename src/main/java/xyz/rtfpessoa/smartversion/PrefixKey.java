@@ -0,0 +1,158 @@
+package xyz.rtfpessoa.smartversion;
+
+/**
+ * A {@code long} that abbreviates the first items of a version, so most comparisons are settled
+ * without walking the item trees.
+ *
+ * <p>The key holds 4 fields, compared from the most significant one, followed by a flag set when
+ * the key holds the whole version. Each field describes the root item at the same index:
+ *
+ * <ul>
+ *   <li>a number, which is saturated when it does not fit the field;
+ *   <li>a sub-list starting with a qualifier, by qualifier rank;
+ *   <li>the end of the version;
+ *   <li>anything else, which makes the key unknown from that field onwards.
+ * </ul>
+ *
+ * <p>The fields after a saturated number, a qualifier or the end of the version are left empty.
+ * {@link #compare(long, long)} only settles a comparison on the first field that differs when that
+ * field alone decides it, and returns the same value as {@link ListItem#compareTo(Item)}.
+ */
+final class PrefixKey {
+
+  /** Returned by {@link #compare(long, long)} when the items have to be compared. */
+  static final int UNDECIDED = Integer.MIN_VALUE;
+
+  private static final long EXACT = 1L;
+
+  private static final int[] FIELD_BITS = {26, 15, 15, 6};
+
+  private static final int[] FIELD_SHIFT = new int[FIELD_BITS.length];
+
+  static {
+    int shift = Long.SIZE - 1;
+    for (int i = 0; i < FIELD_BITS.length; i++) {
+      shift -= FIELD_BITS[i];
+      FIELD_SHIFT[i] = shift;
+    }
+  }
+
+  private static final int UNKNOWN = 0;
+
+  /** Sub-lists starting with a qualifier, offset by the qualifier rank. */
+  private static final int QUALIFIER = 1;
+
+  /** The end of a version in MAVEN mode, which compares with qualifiers like a release. */
+  private static final int MAVEN_END =
+      QUALIFIER + StringItem.qualifierRank("", Item.ComparisonMode.MAVEN);
+
+  /** The end of a version outside MAVEN mode, which is higher than any sub-list. */
+  private static final int END = QUALIFIER + StringItem.UNKNOWN_QUALIFIER_RANK + 1;
+
+  /** Numbers, offset by their value. */
+  private static final int NUMBER = 16;
+
+  private PrefixKey() {}
+
+  static long of(ListItem items) {
+    boolean maven = Item.ComparisonMode.MAVEN.equals(items.getMode());
+    long key = 0;
+    for (int i = 0; i < FIELD_BITS.length; i++) {
+      int max = (1 << FIELD_BITS[i]) - 1;
+      int code;
+      boolean last = true;
+      if (i == items.size()) {
+        code = maven ? MAVEN_END : END;
+        key |= EXACT;
+      } else {
+        Item item = items.get(i);
+        switch (item.getType()) {
+          case LONG:
+            long value = ((LongItem) item).value();
+            if (value == 0 && (maven || i >= 3) && !followedByGreaterItems(items, i + 1)) {
+              // 0 compares equal to a missing item, so the items after it decide
+              code = UNKNOWN;
+            } else if (value < max - NUMBER) {
+              code = NUMBER + (int) value;
+              last = false;
+            } else {
+              code = max;
+            }
+            break;
+          case BIGINTEGER:
+            code = ((BigIntegerItem) item).isNull() ? UNKNOWN : max;
+            break;
+          case LIST:
+            code = qualifierCode((ListItem) item);
+            break;
+          default:
+            code = UNKNOWN;
+        }
+      }
+      key |= (long) code << FIELD_SHIFT[i];
+      if (last) {
+        break;
+      }
+    }
+    return key;
+  }
+
+  /** Returns whether the items from {@code from} onwards compare with missing items as 1. */
+  private static boolean followedByGreaterItems(ListItem items, int from) {
+    for (int i = from; i < items.size(); i++) {
+      int result = items.get(i).compareTo(null);
+      if (result != 0) {
+        return result == 1;
+      }
+    }
+    return false;
+  }
+
+  private static int qualifierCode(ListItem list) {
+    if (list.isEmpty()) {
+      return UNKNOWN;
+    }
+    Item first = list.get(0);
+    switch (first.getType()) {
+      case STRING:
+        return QUALIFIER + ((StringItem) first).rank();
+      case COMBINATION:
+        return QUALIFIER + ((CombinationItem) first).getStringPart().rank();
+      default:
+        return UNKNOWN;
+    }
+  }
+
+  /**
+   * Compares two keys of versions parsed in the same mode.
+   *
+   * @return the result of comparing the versions, or {@link #UNDECIDED} when the keys do not hold
+   *     enough of them
+   */
+  static int compare(long a, long b) {
+    long diff = (a ^ b) & ~EXACT;
+    if (diff == 0) {
+      return (a & b & EXACT) != 0 ? 0 : UNDECIDED;
+    }
+
+    int field = 0;
+    while ((diff >>> FIELD_SHIFT[field]) == 0) {
+      field++;
+    }
+    int x = field(a, field);
+    int y = field(b, field);
+    if (x == UNKNOWN || y == UNKNOWN) {
+      return UNDECIDED;
+    }
+    if (x < END && y < END) {
+      // qualifiers compare by rank: 1-alpha < 1-rc, 1-rc < 1 < 1-sp in MAVEN mode
+      return x - y;
+    }
+    // 1.1 > 1.0, 1.1 > 1-1, 1.0.0 > 1.0.0-rc
+    return Long.compare(a, b);
+  }
+
+  private static int field(long key, int field) {
+    return (int) (key >>> FIELD_SHIFT[field]) & ((1 << FIELD_BITS[field]) - 1);
+  }
+}
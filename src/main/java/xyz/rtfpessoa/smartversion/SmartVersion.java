@@ -1,11 +1,18 @@
 package xyz.rtfpessoa.smartversion;
 
-import java.math.BigInteger;
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.Locale;
-import java.util.Set;
-import java.util.regex.Pattern;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import org.jetbrains.annotations.Nullable;
 
 /**
  *
@@ -51,242 +58,118 @@ import java.util.regex.Pattern;
  *       but prefer {@code 1.0.0-X1} over {@code 1.0.0.X1}.
  * </ul>
  *
+ * <p>Versions are immutable and can be shared across threads without synchronization: the items
+ * cannot be changed once parsed, and the values computed on demand are published safely. Create a
+ * new version, or get one from the {@link #of(String) cache}, instead of changing one.
+ *
+ * <p>Parsed versions can be written in a compact binary form with {@link #writeTo(DataOutput)} and
+ * read back without parsing with {@link #readFrom(DataInput)}. Java serialization uses the same
+ * form.
+ *
  * @see <a href="https://maven.apache.org/pom.html#version-order-specification">"Versioning" in the
  *     POM reference</a>
  */
-public class SmartVersion implements Comparable<SmartVersion> {
+public final class SmartVersion implements Comparable<SmartVersion>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int RELEASE_RANK = StringItem.qualifierRank("", Item.ComparisonMode.MAVEN);
 
-  private static final int MAX_LONGITEM_LENGTH = 18;
+  private final String value;
 
-  private String value;
+  private final Item.ComparisonMode mode;
 
-  private Item.ComparisonMode mode;
+  /**
+   * The parsed items, {@code null} until a {@link #lazy(String, Item.ComparisonMode) lazy}
+   * version is first compared. The prefix key is written before them.
+   */
+  private volatile ListItem items;
 
+  private long prefixKey;
+
+  /**
+   * The cached canonical form, {@code null} until it is computed. Like the hash code, it can be
+   * computed more than once by racing threads, which all compute the same immutable value.
+   */
   private String canonical;
 
-  private ListItem items;
+  /** The cached hash code, 0 until it is computed. */
+  private int hash;
 
   public SmartVersion(String version) {
     this(version, Item.ComparisonMode.MAVEN);
   }
 
   public SmartVersion(String version, Item.ComparisonMode mode) {
-    if (Item.ComparisonMode.MAVEN.equals(mode)) {
-      parseVersion(version);
-    } else {
-      parseSemVerVersion(version, mode);
-    }
+    this(mode, version);
+    publish(parseItems(version, mode));
   }
 
-  @SuppressWarnings("checkstyle:innerassignment")
-  public final void parseVersion(String version) {
-    this.value = version;
-    this.mode = Item.ComparisonMode.MAVEN;
-    version = version.toLowerCase(Locale.ENGLISH);
-    items = new ListItem(mode);
-
-    ListItem list = items;
-
-    Deque<Item> stack = new ArrayDeque<>();
-    stack.push(list);
-
-    boolean isDigit = false;
-
-    boolean isCombination = false;
-
-    int startIndex = 0;
-
-    for (int i = 0; i < version.length(); i++) {
-      char c = version.charAt(i);
-
-      if (c == '.') {
-        if (i == startIndex) {
-          list.add(LongItem.ZERO);
-        } else {
-          list.add(parseItem(isCombination, isDigit, version.substring(startIndex, i), mode));
-        }
-        isCombination = false;
-        startIndex = i + 1;
-      } else if (c == '-') {
-        if (i == startIndex) {
-          list.add(LongItem.ZERO);
-        } else {
-          // X-1 is going to be treated as X1
-          if (!isDigit && i != version.length() - 1) {
-            char c1 = version.charAt(i + 1);
-            if (Character.isDigit(c1)) {
-              isCombination = true;
-              continue;
-            }
-          }
-          list.add(parseItem(isCombination, isDigit, version.substring(startIndex, i), mode));
-        }
-        startIndex = i + 1;
-
-        list.add(list = new ListItem(mode));
-        stack.push(list);
-        isCombination = false;
-      } else if (Character.isDigit(c)) {
-        if (!isDigit && i > startIndex) {
-          // X1
-          isCombination = true;
-
-          if (!list.isEmpty()) {
-            list.add(list = new ListItem(mode));
-            stack.push(list);
-          }
-        }
-
-        isDigit = true;
-      } else {
-        if (isDigit && i > startIndex) {
-          list.add(parseItem(isCombination, true, version.substring(startIndex, i), mode));
-          startIndex = i;
-
-          list.add(list = new ListItem(mode));
-          stack.push(list);
-          isCombination = false;
-        }
-
-        isDigit = false;
-      }
-    }
-
-    if (version.length() > startIndex) {
-      // 1.0.0.X1 < 1.0.0-X2
-      // treat .X as -X for any string qualifier X
-      if (!isDigit && !list.isEmpty()) {
-        list.add(list = new ListItem(mode));
-        stack.push(list);
-      }
-
-      list.add(parseItem(isCombination, isDigit, version.substring(startIndex), mode));
-    }
-
-    while (!stack.isEmpty()) {
-      list = (ListItem) stack.pop();
-      if (Item.ComparisonMode.MAVEN.equals(mode)) {
-        list.normalize();
-      }
-    }
+  /** Creates a version that is not parsed yet, see {@link #lazy(String, Item.ComparisonMode)}. */
+  private SmartVersion(Item.ComparisonMode mode, String version) {
+    this.value = Objects.requireNonNull(version, "version");
+    this.mode = Objects.requireNonNull(mode, "mode");
   }
 
-  private final Pattern ITEM_PATTERN =
-      Pattern.compile(
-          "(?<qualifiername>[abm])(?<qualifierversion>[0-9]+)|(?<number>[0-9]+)|(?<word>[a-zA-Z]+)");
-
-  private final String QUOTED_DOT = Pattern.quote(".");
-
-  private final Set<Item.Type> NUMBER_TYPES = Set.of(Item.Type.LONG, Item.Type.BIGINTEGER);
-
-  public final void parseSemVerVersion(String version, Item.ComparisonMode mode) {
-    this.value = version;
-    this.mode = mode;
-    version = version.toLowerCase(Locale.ENGLISH);
-
-    var plusIndex = version.indexOf("+");
-    if (plusIndex != -1) {
-      version = version.substring(0, plusIndex);
-    }
-
-    items = new ListItem(mode);
-
-    ListItem list = items;
-
-    String[] versionParts = version.split(QUOTED_DOT);
-    for (String part : versionParts) {
-      var matcher = ITEM_PATTERN.matcher(part);
-      // TODO: can we use matcher state to track matcherIdx instead?
-      for (int matcherIdx = 0; matcher.find(); matcherIdx++) {
-        if (matcherIdx != 0) {
-          list.add(list = new ListItem(mode));
-        }
-
-        var number = matcher.group("number");
-        if (number != null) {
-          list.add(parseItem(false, true, number, mode));
-          continue;
-        }
-
-        if (items.size() < 3) {
-          fillMissingMajorMinorPath();
-        }
-
-        var qualifierName = matcher.group("qualifiername");
-        var qualifierVersion = matcher.group("qualifierversion");
-        if (qualifierName != null && qualifierVersion != null) {
-          list.add(StringItem.newStringItem(qualifierName, true, mode));
-          list.add(list = new ListItem(mode));
-          list.add(parseItem(false, true, qualifierVersion, mode));
-          continue;
-        }
-
-        var word = matcher.group("word");
-        if (word != null) {
-          list.add(parseItem(false, false, word, mode));
-          continue;
-        }
-      }
-    }
-
-    // 2.0 => 2.0.0
-    fillMissingMajorMinorPath();
+  /**
+   * Returns a version in MAVEN mode that is only parsed when it is first needed.
+   *
+   * @see #lazy(String, Item.ComparisonMode)
+   */
+  public static SmartVersion lazy(String version) {
+    return lazy(version, Item.ComparisonMode.MAVEN);
+  }
 
-    // 2.0.0.0 => 2.0.0
-    removeExtraTrailingZeros(items);
+  /**
+   * Returns a version that keeps the string and is only parsed when it is first needed, by {@link
+   * #compareTo(SmartVersion)}, {@link #getCanonical()}, {@link #hashCode()} and the other methods
+   * that look at its items. {@link #getOriginal()} and {@link #toString()} never parse it.
+   *
+   * <p>The version is parsed once, even when it is first used by several threads at the same time.
+   */
+  public static SmartVersion lazy(String version, Item.ComparisonMode mode) {
+    return new SmartVersion(mode, version);
   }
 
-  // Make sure we always start with 3 LongItems
-  private void fillMissingMajorMinorPath() {
-    for (int i = 3 - items.size(); i > 0; i--) {
-      items.add(new LongItem(0L));
-    }
+  /**
+   * Creates a version from items that are already parsed, with the canonical form of the items as
+   * original when it is not known.
+   */
+  SmartVersion(@Nullable String version, ListItem items) {
+    this.value = version != null ? version : items.toString();
+    this.mode = items.getMode();
+    publish(items);
   }
 
-  private boolean removeExtraTrailingZeros(ListItem items) {
-    while (items.size() > 3) {
-      var lastItem = items.get(items.size() - 1);
-      if (lastItem.isNull()) {
-        items.remove(items.size() - 1);
-        continue;
-      } else if (Item.Type.LIST.equals(lastItem.getType())) {
-        var listItem = (ListItem) lastItem;
-        if (removeExtraTrailingZeros(listItem)) {
-          continue;
-        }
-      }
-      break;
-    }
+  /**
+   * Returns the parsed version from the {@link VersionCache#shared() shared cache}, in MAVEN mode.
+   */
+  public static SmartVersion of(String version) {
+    return of(version, Item.ComparisonMode.MAVEN);
+  }
 
-    return items.isEmpty();
+  /**
+   * Returns the parsed version from the {@link VersionCache#shared() shared cache}.
+   */
+  public static SmartVersion of(String version, Item.ComparisonMode mode) {
+    return VersionCache.shared().get(version, mode);
   }
 
-  static Item parseItem(
-      boolean isCombination, boolean isDigit, String buf, Item.ComparisonMode mode) {
-    if (isCombination) {
-      return new CombinationItem(buf.replace("-", ""), mode);
-    } else if (isDigit) {
-      buf = stripLeadingZeroes(buf);
-      if (buf.length() <= MAX_LONGITEM_LENGTH) {
-        // lower than 2^63
-        return new LongItem(Long.parseLong(buf));
-      }
-      return new BigIntegerItem(new BigInteger(buf));
-    }
-    return StringItem.newStringItem(buf, false, mode);
+  /**
+   * Freezes the items and publishes them, after the prefix key so that reading the items first
+   * makes the key visible.
+   */
+  private ListItem publish(ListItem parsed) {
+    parsed.freeze();
+    prefixKey = PrefixKey.of(parsed);
+    items = parsed;
+    return parsed;
   }
 
-  private static String stripLeadingZeroes(String buf) {
-    if (buf == null || buf.isEmpty()) {
-      return "0";
-    }
-    for (int i = 0; i < buf.length(); ++i) {
-      char c = buf.charAt(i);
-      if (c != '0') {
-        return buf.substring(i);
-      }
-    }
-    return buf;
+  /** Returns the {@link PrefixKey} of the version, parsing it if needed. */
+  long prefixKey() {
+    parsed();
+    return prefixKey;
   }
 
   @Override
@@ -294,7 +177,35 @@ public class SmartVersion implements Comparable<SmartVersion> {
     if (!mode.equals(o.mode)) {
       throw new IllegalArgumentException("Cannot compare versions from different modes");
     }
-    return items.compareTo(o.items);
+    // most comparisons are settled by the first numbers or the first qualifier
+    ListItem parsed = parsed();
+    ListItem otherParsed = o.parsed();
+    int result = PrefixKey.compare(prefixKey, o.prefixKey);
+    if (result != PrefixKey.UNDECIDED) {
+      return result;
+    }
+    return FlightRecorderEvents.enabled()
+        ? CompareEvent.compare(this, parsed, o, otherParsed)
+        : parsed.compareTo(otherParsed);
+  }
+
+  /**
+   * Compares two versions in the given mode, returning the same value as {@code new
+   * SmartVersion(a, mode).compareTo(new SmartVersion(b, mode))}.
+   *
+   * <p>This is a fast path for versions that differ in their leading dot-separated numbers, e.g.
+   * {@code 1.2.3} and {@code 1.10.0-rc.1}: the strings are scanned together and the comparison
+   * stops at the first numbers that differ, without building any item. Every other comparison,
+   * e.g. versions whose leading numbers are equal, or that reach a qualifier or a {@code -} first,
+   * parses both versions and compares them with {@link #compareTo(SmartVersion)}.
+   */
+  public static int compare(CharSequence a, CharSequence b, Item.ComparisonMode mode) {
+    Objects.requireNonNull(mode, "mode");
+    int result = LockstepComparator.compare(a, b, mode);
+    if (result != LockstepComparator.UNDECIDED) {
+      return result;
+    }
+    return new SmartVersion(a.toString(), mode).compareTo(new SmartVersion(b.toString(), mode));
   }
 
   public boolean lessThan(SmartVersion versionToCompare) {
@@ -309,29 +220,212 @@ public class SmartVersion implements Comparable<SmartVersion> {
     return compareTo(versionToCompare) == 0;
   }
 
+  /**
+   * Returns whether the version is a pre-release, ordered before its release: in MAVEN mode a
+   * version with one of the {@code alpha}, {@code beta}, {@code milestone}, {@code rc} or {@code
+   * snapshot} qualifiers, otherwise a version with a pre-release part, e.g. {@code 1.0.0-1}.
+   */
+  public boolean isPreRelease() {
+    if (Item.ComparisonMode.MAVEN.equals(mode)) {
+      return hasPreReleaseQualifier(parsed());
+    }
+    for (Item item : parsed()) {
+      if (item.getType() == Item.Type.LIST) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean hasPreReleaseQualifier(ListItem list) {
+    for (Item item : list) {
+      switch (item.getType()) {
+        case STRING:
+          if (((StringItem) item).rank() < RELEASE_RANK) {
+            return true;
+          }
+          break;
+        case COMBINATION:
+          if (((CombinationItem) item).getStringPart().rank() < RELEASE_RANK) {
+            return true;
+          }
+          break;
+        case LIST:
+          if (hasPreReleaseQualifier((ListItem) item)) {
+            return true;
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return false;
+  }
+
   public String getOriginal() {
     return value;
   }
 
+  /** Returns the mode the version is parsed in, without parsing a lazy version. */
+  public Item.ComparisonMode getMode() {
+    return mode;
+  }
+
   @Override
   public String toString() {
     return getOriginal();
   }
 
+  ListItem getItems() {
+    return parsed();
+  }
+
+  private ListItem parsed() {
+    ListItem parsed = items;
+    return parsed != null ? parsed : parse();
+  }
+
+  private synchronized ListItem parse() {
+    ListItem parsed = items;
+    return parsed != null ? parsed : publish(parseItems(value, mode));
+  }
+
+  /** Parses the items, creating a Flight Recorder event once Flight Recorder is initialized. */
+  private static ListItem parseItems(String version, Item.ComparisonMode mode) {
+    return FlightRecorderEvents.enabled()
+        ? ParseEvent.parse(version, mode)
+        : VersionParser.parse(version, mode);
+  }
+
+  /**
+   * Returns a binary key of this version, whose unsigned lexicographic order is the order of {@link
+   * #compareTo(SmartVersion)} for versions parsed in the same mode.
+   *
+   * @see SortKey
+   */
+  public byte[] toSortKey() {
+    return SortKey.of(parsed());
+  }
+
   public String getCanonical() {
     if (canonical == null) {
-      canonical = items.toString();
+      canonical = parsed().toString();
     }
     return canonical;
   }
 
+  /** Writes the binary form of this version, with its original string. */
+  public void writeTo(DataOutput out) throws IOException {
+    writeTo(out, true);
+  }
+
+  /**
+   * Writes the binary form of this version. Without the original string, the version is read back
+   * with its {@link #getCanonical() canonical form} as original.
+   */
+  public void writeTo(DataOutput out, boolean includeOriginal) throws IOException {
+    out.write(VersionSerializer.serialize(this, includeOriginal));
+  }
+
+  /**
+   * Writes the binary form of this version, with its original string.
+   *
+   * @throws java.nio.BufferOverflowException if the buffer does not have enough space left
+   */
+  public void writeTo(ByteBuffer buffer) {
+    writeTo(buffer, true);
+  }
+
+  /**
+   * Writes the binary form of this version.
+   *
+   * @throws java.nio.BufferOverflowException if the buffer does not have enough space left
+   * @see #writeTo(DataOutput, boolean)
+   */
+  public void writeTo(ByteBuffer buffer, boolean includeOriginal) {
+    buffer.put(VersionSerializer.serialize(this, includeOriginal));
+  }
+
+  /**
+   * Reads a version written by {@link #writeTo(DataOutput)}, without parsing it.
+   *
+   * @throws IllegalArgumentException if the format version is not supported or the data is
+   *     malformed
+   */
+  public static SmartVersion readFrom(DataInput in) throws IOException {
+    return VersionSerializer.deserialize(in);
+  }
+
+  /**
+   * Reads a version written by {@link #writeTo(ByteBuffer)}, without parsing it.
+   *
+   * @throws IllegalArgumentException if the format version is not supported or the data is
+   *     malformed
+   * @throws java.nio.BufferUnderflowException if the buffer ends before the version
+   */
+  public static SmartVersion readFrom(ByteBuffer buffer) {
+    return VersionSerializer.deserialize(buffer);
+  }
+
+  private Object writeReplace() {
+    return new SerializedForm(this);
+  }
+
+  private void readObject(ObjectInputStream in) throws InvalidObjectException {
+    throw new InvalidObjectException("SmartVersion is serialized through its binary form");
+  }
+
+  /** The Java serialization of a version, in the binary form of {@link #writeTo(DataOutput)}. */
+  private static final class SerializedForm implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private SmartVersion version;
+
+    public SerializedForm() {}
+
+    SerializedForm(SmartVersion version) {
+      this.version = version;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+      version.writeTo(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+      version = readFrom(in);
+    }
+
+    private Object readResolve() {
+      return version;
+    }
+  }
+
+  /** Versions are equal when they are parsed in the same mode and compare as equal. */
   @Override
   public boolean equals(Object o) {
-    return (o instanceof SmartVersion) && equalTo(((SmartVersion) o));
+    return (o instanceof SmartVersion)
+        && mode.equals(((SmartVersion) o).mode)
+        && equalTo(((SmartVersion) o));
   }
 
+  /**
+   * Returns a hash of the {@link #toSortKey() sort key}, which is the same for versions that
+   * compare as equal, like {@code 1.0} and {@code 1-ga}. It is computed once.
+   */
   @Override
   public int hashCode() {
-    return items.hashCode();
+    int h = hash;
+    if (h == 0) {
+      h = 31 * Arrays.hashCode(toSortKey()) + mode.ordinal();
+      if (h == 0) {
+        // 0 is reserved for a hash that is not computed yet
+        h = 1;
+      }
+      hash = h;
+    }
+    return h;
   }
 }
@@ -0,0 +1,198 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Operations over many versions at once, which spread the work over the common {@link
+ * java.util.concurrent.ForkJoinPool}.
+ */
+public final class SmartVersions {
+
+  /** The number of versions each task of {@code parseAll} parses by default. */
+  public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+  private SmartVersions() {}
+
+  /**
+   * Parses the versions in parallel, in chunks of {@link #DEFAULT_CHUNK_SIZE} versions.
+   *
+   * @see #parseAll(Collection, Item.ComparisonMode, int)
+   */
+  public static ParseResult parseAll(Collection<String> versions, Item.ComparisonMode mode) {
+    return parseAll(versions, mode, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Parses the versions in parallel on the common {@link ForkJoinPool}, splitting them in tasks of
+   * at most {@code chunkSize} versions.
+   *
+   * <p>A version that fails to parse does not stop the others: its failure is kept by index in the
+   * result, and its parsed version is {@code null}.
+   */
+  public static ParseResult parseAll(
+      Collection<String> versions, Item.ComparisonMode mode, int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    String[] input = versions.toArray(new String[0]);
+    SmartVersion[] parsed = new SmartVersion[input.length];
+    ConcurrentSkipListMap<Integer, RuntimeException> failures = new ConcurrentSkipListMap<>();
+    ForkJoinPool.commonPool()
+        .invoke(new ParseTask(input, mode, parsed, failures, 0, input.length, chunkSize));
+    return new ParseResult(parsed, failures);
+  }
+
+  /**
+   * Returns the versions in ascending order, in a new list. Equal versions keep their order.
+   *
+   * <p>The {@link SmartVersion#toSortKey() sort keys} are computed in parallel, once per version,
+   * and sorted with {@link Arrays#parallelSort(Object[], Comparator)}, so no item trees are
+   * compared. Where {@code compareTo} is not transitive (see {@link SortKey}) the order is the one
+   * of the keys.
+   *
+   * @throws IllegalArgumentException if the versions are not all parsed in the same mode
+   */
+  public static List<SmartVersion> sort(List<SmartVersion> versions) {
+    SmartVersion[] array = versions.toArray(new SmartVersion[0]);
+    for (SmartVersion version : array) {
+      if (!array[0].getMode().equals(version.getMode())) {
+        throw new IllegalArgumentException("Cannot compare versions from different modes");
+      }
+    }
+    return sortByKey(array, SmartVersion::toSortKey);
+  }
+
+  /**
+   * Returns the version strings in ascending order of the versions they parse to in {@code mode},
+   * in a new list. Each string is parsed once, in parallel.
+   *
+   * @see #sort(List)
+   */
+  public static List<String> sortStrings(List<String> versions, Item.ComparisonMode mode) {
+    String[] array = versions.toArray(new String[0]);
+    return sortByKey(array, version -> new SmartVersion(version, mode).toSortKey());
+  }
+
+  private static <T> List<T> sortByKey(T[] values, Function<T, byte[]> sortKey) {
+    @SuppressWarnings("unchecked")
+    Keyed<T>[] keyed = (Keyed<T>[]) new Keyed<?>[values.length];
+    IntStream.range(0, values.length)
+        .parallel()
+        .forEach(i -> keyed[i] = new Keyed<>(sortKey.apply(values[i]), values[i]));
+
+    // the parallel sort of objects is a stable merge sort
+    Arrays.parallelSort(keyed, Keyed.ORDER);
+
+    List<T> sorted = new ArrayList<>(keyed.length);
+    for (Keyed<T> entry : keyed) {
+      sorted.add(entry.value());
+    }
+    return sorted;
+  }
+
+  /** The versions parsed by {@link #parseAll(Collection, Item.ComparisonMode, int)}. */
+  public static final class ParseResult {
+
+    private final SmartVersion[] versions;
+
+    private final SortedMap<Integer, RuntimeException> failures;
+
+    private ParseResult(SmartVersion[] versions, SortedMap<Integer, RuntimeException> failures) {
+      this.versions = versions;
+      this.failures = Collections.unmodifiableSortedMap(failures);
+    }
+
+    /** Returns the parsed versions in input order, with {@code null} where parsing failed. */
+    public SmartVersion[] versions() {
+      return versions.clone();
+    }
+
+    /** Returns the parsed version at {@code index}, or {@code null} if it failed to parse. */
+    public SmartVersion get(int index) {
+      return versions[index];
+    }
+
+    public int size() {
+      return versions.length;
+    }
+
+    /** Returns the failures by input index, in index order. */
+    public SortedMap<Integer, RuntimeException> failures() {
+      return failures;
+    }
+
+    public boolean hasFailures() {
+      return !failures.isEmpty();
+    }
+  }
+
+  private static final class ParseTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String[] input;
+
+    private final Item.ComparisonMode mode;
+
+    private final SmartVersion[] output;
+
+    private final Map<Integer, RuntimeException> failures;
+
+    private final int from;
+
+    private final int to;
+
+    private final int chunkSize;
+
+    ParseTask(
+        String[] input,
+        Item.ComparisonMode mode,
+        SmartVersion[] output,
+        Map<Integer, RuntimeException> failures,
+        int from,
+        int to,
+        int chunkSize) {
+      this.input = input;
+      this.mode = mode;
+      this.output = output;
+      this.failures = failures;
+      this.from = from;
+      this.to = to;
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > chunkSize) {
+        int middle = (from + to) >>> 1;
+        invokeAll(
+            new ParseTask(input, mode, output, failures, from, middle, chunkSize),
+            new ParseTask(input, mode, output, failures, middle, to, chunkSize));
+        return;
+      }
+      for (int i = from; i < to; i++) {
+        try {
+          output[i] = new SmartVersion(input[i], mode);
+        } catch (RuntimeException e) {
+          failures.put(i, e);
+        }
+      }
+    }
+  }
+
+  private record Keyed<T>(byte[] key, T value) {
+    static final Comparator<Keyed<?>> ORDER = (a, b) -> SortKey.compare(a.key, b.key);
+  }
+}
@@ -0,0 +1,405 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ *
+ *
+ * <h2>Binary sort keys of parsed versions.</h2>
+ *
+ * <p>The key of a version is a {@code byte[]} whose unsigned lexicographic order ({@link
+ * Arrays#compareUnsigned(byte[], byte[])}) is the order of {@link
+ * SmartVersion#compareTo(SmartVersion)} for versions parsed in the same mode, so versions can be
+ * sorted, stored as ordered keys or binary searched without their item trees.
+ *
+ * <p>The items of a list are written one token each, followed by an {@code END} byte. A token
+ * starts with a class byte that orders the item types the way the items do, and places every item
+ * below or above {@code END} depending on how it compares with a missing item ({@link
+ * Item#compareTo(Item)} with {@code null}):
+ *
+ * <ul>
+ *   <li>{@code LIST} outside MAVEN mode, which is lower than anything else;
+ *   <li>strings and combinations lower than a missing item, by qualifier rank;
+ *   <li>MAVEN sub-lists lower than a missing item;
+ *   <li>{@code END};
+ *   <li>strings and combinations higher than a missing item, by qualifier rank;
+ *   <li>MAVEN sub-lists higher than a missing item;
+ *   <li>numbers, by number of magnitude bytes, with {@code BIGINTEGER} always last.
+ * </ul>
+ *
+ * <p>Items that are equal to a missing item (zeros and release qualifiers) take the side of the
+ * items that follow them, and are dropped when nothing but such items follow. Numbers are followed
+ * by their big-endian magnitude. Unknown qualifiers, and every qualifier in SEMVER mode, are
+ * followed by their characters and a {@code 0x00} terminator. Strings end with a byte telling
+ * whether they are the string part of a combination, in which case the number follows. Sub-lists
+ * are followed by their own items and {@code END}. Items that are always present, the first item
+ * of a sub-list and outside MAVEN mode the first 3 items of a version, are written as they are.
+ *
+ * <p>{@code compareTo} is not transitive in a few corner cases: an item is compared with a missing
+ * item using different rules than with other items, e.g. in MAVEN mode {@code 1.sp.1 > 1 > 1-alpha}
+ * but {@code 1.sp.1 < 1-alpha}. No key can follow such cycles, so in those cases the key orders the
+ * versions by the side of the missing item they fall on.
+ */
+public final class SortKey {
+
+  private static final int LIST = 0x10;
+
+  private static final int STRING_LOW = 0x20;
+
+  private static final int EQUAL_STRING_LOW = 0x28;
+
+  private static final int MAVEN_LIST_LOW = 0x30;
+
+  private static final int EQUAL_NUMBER_LOW = 0x38;
+
+  private static final int END = 0x40;
+
+  private static final int EQUAL_STRING_HIGH = 0x48;
+
+  private static final int STRING_HIGH = 0x50;
+
+  private static final int MAVEN_LIST_HIGH = 0x58;
+
+  private static final int NUMBER = 0x60;
+
+  private static final int BIGINTEGER = 0x69;
+
+  private static final int RANK_MASK = 0x07;
+
+  private static final int PLAIN_STRING = 0x00;
+
+  private static final int COMBINATION = 0x01;
+
+  private static final int STRING_TERMINATOR = 0x00;
+
+  /** Characters below this one are written as a single byte, shifted by one. */
+  private static final int NARROW_CHAR_LIMIT = 0x7F;
+
+  private static final int WIDE_CHAR = 0xFF;
+
+  private SortKey() {}
+
+  /** Returns the sort key of a version. */
+  public static byte[] of(SmartVersion version) {
+    return of(version.getItems());
+  }
+
+  static byte[] of(ListItem items) {
+    Writer writer = new Writer(items.getMode());
+    writer.writeItems(items, true);
+    return writer.toByteArray();
+  }
+
+  /**
+   * Compares two sort keys.
+   *
+   * @return a negative number, zero or a positive number with the same sign as {@link
+   *     SmartVersion#compareTo(SmartVersion)} for the versions of the keys
+   */
+  public static int compare(byte[] a, byte[] b) {
+    return Arrays.compareUnsigned(a, b);
+  }
+
+  /**
+   * Compares the sort key of a root list of {@code count} numbers with {@code key[from, to)}, like
+   * {@link #compare(byte[], byte[])}, without writing the key of the numbers.
+   *
+   * @param columns the numbers, {@code columns[i][index]} being the item {@code i} of the list
+   */
+  static int compareNumbers(
+      Item.ComparisonMode mode,
+      long[][] columns,
+      int index,
+      int count,
+      byte[] key,
+      int from,
+      int to) {
+    // trailing zeros are not part of a key, unless they are always present
+    int fixed = Item.ComparisonMode.MAVEN.equals(mode) ? 0 : 3;
+    while (count > fixed && columns[count - 1][index] == 0) {
+      count--;
+    }
+    int position = from;
+    for (int i = 0; i <= count; i++) {
+      long value = i < count ? columns[i][index] : 0;
+      int length = (Long.SIZE - Long.numberOfLeadingZeros(value) + 7) / 8;
+      for (int j = -1; j < length; j++) {
+        int b;
+        if (i == count) {
+          b = END;
+        } else if (j < 0) {
+          b = NUMBER + length;
+        } else {
+          b = (int) (value >>> (8 * (length - 1 - j))) & 0xFF;
+        }
+        if (position == to) {
+          return 1;
+        }
+        int other = key[position++] & 0xFF;
+        if (b != other) {
+          return b < other ? -1 : 1;
+        }
+      }
+    }
+    return position == to ? 0 : -1;
+  }
+
+  /**
+   * Decodes a sort key into a readable form, similar to {@link SmartVersion#getCanonical()}.
+   *
+   * <p>Items that are equal to a missing item at the end of a list are not part of the key, and
+   * every release qualifier is shown as the empty qualifier, e.g. {@code 1.0-ga} is shown as
+   * {@code 1}.
+   *
+   * @throws IllegalArgumentException if the bytes are not a sort key
+   */
+  public static String describe(byte[] key) {
+    Reader reader = new Reader(key);
+    StringBuilder buffer = new StringBuilder();
+    reader.readItems(buffer);
+    if (reader.position != key.length) {
+      throw reader.malformed();
+    }
+    return buffer.toString();
+  }
+
+  private static final class Writer {
+    private final Item.ComparisonMode mode;
+
+    private byte[] bytes = new byte[32];
+
+    private int size;
+
+    Writer(Item.ComparisonMode mode) {
+      this.mode = mode;
+    }
+
+    void writeItems(ListItem list, boolean root) {
+      // items that are always present are never compared with a missing item: outside MAVEN mode
+      // versions always have 3 items, and sub-lists are never empty
+      int fixed;
+      if (root) {
+        fixed = Item.ComparisonMode.MAVEN.equals(mode) ? 0 : 3;
+      } else {
+        fixed = 1;
+      }
+      for (int i = 0; i < list.size(); i++) {
+        Item item = list.get(i);
+        int sign = Integer.signum(item.compareTo(null));
+        if (sign == 0 && i >= fixed) {
+          sign = compareToNull(list, i + 1);
+          if (sign == 0) {
+            // 1.0 == 1, 1-ga == 1
+            break;
+          }
+          writeItem(item, sign, true);
+        } else {
+          writeItem(item, sign, false);
+        }
+      }
+      write(END);
+    }
+
+    /** Returns how the items from {@code from} onwards compare with missing items. */
+    private static int compareToNull(ListItem list, int from) {
+      for (int i = from; i < list.size(); i++) {
+        int result = list.get(i).compareTo(null);
+        if (result != 0) {
+          return Integer.signum(result);
+        }
+      }
+      return 0;
+    }
+
+    /**
+     * Writes an item given the sign of its comparison with a missing item, or the sign of the items
+     * that follow it when {@code equalToNull}.
+     */
+    private void writeItem(Item item, int sign, boolean equalToNull) {
+      switch (item.getType()) {
+        case LONG:
+        case BIGINTEGER:
+          if (equalToNull && sign < 0) {
+            write(EQUAL_NUMBER_LOW);
+          }
+          writeNumber(item);
+          break;
+        case STRING:
+          writeString((StringItem) item, sign, equalToNull);
+          write(PLAIN_STRING);
+          break;
+        case COMBINATION:
+          CombinationItem combination = (CombinationItem) item;
+          writeString(combination.getStringPart(), sign, equalToNull);
+          write(COMBINATION);
+          writeNumber(combination.getDigitPart());
+          break;
+        case LIST:
+          if (!Item.ComparisonMode.MAVEN.equals(mode)) {
+            write(LIST);
+          } else {
+            write(sign < 0 ? MAVEN_LIST_LOW : MAVEN_LIST_HIGH);
+          }
+          writeItems((ListItem) item, false);
+          break;
+        default:
+          throw new IllegalStateException("invalid item: " + item.getClass());
+      }
+    }
+
+    private void writeString(StringItem item, int sign, boolean equalToNull) {
+      int base;
+      if (equalToNull) {
+        base = sign < 0 ? EQUAL_STRING_LOW : EQUAL_STRING_HIGH;
+      } else {
+        base = sign < 0 ? STRING_LOW : STRING_HIGH;
+      }
+      write(base + item.rank());
+      if (item.rank() == StringItem.UNKNOWN_QUALIFIER_RANK) {
+        String value = item.value();
+        for (int i = 0; i < value.length(); i++) {
+          char c = value.charAt(i);
+          if (c < NARROW_CHAR_LIMIT) {
+            write(c + 1);
+          } else {
+            write(WIDE_CHAR);
+            write(c >>> 8);
+            write(c);
+          }
+        }
+        write(STRING_TERMINATOR);
+      }
+    }
+
+    private void writeNumber(Item item) {
+      if (item.getType() == Item.Type.LONG) {
+        long value = ((LongItem) item).value();
+        int length = (Long.SIZE - Long.numberOfLeadingZeros(value) + 7) / 8;
+        write(NUMBER + length);
+        for (int i = length - 1; i >= 0; i--) {
+          write((int) (value >>> (8 * i)));
+        }
+      } else {
+        BigInteger value = ((BigIntegerItem) item).value();
+        int length = (value.bitLength() + 7) / 8;
+        byte[] magnitude = value.toByteArray();
+        write(BIGINTEGER);
+        for (int i = 3; i >= 0; i--) {
+          write(length >>> (8 * i));
+        }
+        ensureCapacity(length);
+        System.arraycopy(magnitude, magnitude.length - length, bytes, size, length);
+        size += length;
+      }
+    }
+
+    private void write(int b) {
+      ensureCapacity(1);
+      bytes[size++] = (byte) b;
+    }
+
+    private void ensureCapacity(int length) {
+      if (size + length > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+      }
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(bytes, size);
+    }
+  }
+
+  private static final class Reader {
+    private final byte[] key;
+
+    private int position;
+
+    Reader(byte[] key) {
+      this.key = key;
+    }
+
+    void readItems(StringBuilder buffer) {
+      boolean first = true;
+      while (true) {
+        int b = read();
+        if (b == END) {
+          return;
+        }
+        boolean list = b == LIST || b == MAVEN_LIST_LOW || b == MAVEN_LIST_HIGH;
+        if (!first) {
+          buffer.append(list ? '-' : '.');
+        }
+        first = false;
+
+        if (list) {
+          readItems(buffer);
+        } else if (b == EQUAL_NUMBER_LOW) {
+          readNumber(read(), buffer);
+        } else if (b >= NUMBER) {
+          readNumber(b, buffer);
+        } else {
+          readString(b, buffer);
+        }
+      }
+    }
+
+    private void readString(int b, StringBuilder buffer) {
+      int base = b & ~RANK_MASK;
+      if (base != STRING_LOW
+          && base != EQUAL_STRING_LOW
+          && base != EQUAL_STRING_HIGH
+          && base != STRING_HIGH) {
+        throw malformed();
+      }
+      int rank = b & RANK_MASK;
+      if (rank == StringItem.UNKNOWN_QUALIFIER_RANK) {
+        for (int c = read(); c != STRING_TERMINATOR; c = read()) {
+          buffer.append(c == WIDE_CHAR ? (char) ((read() << 8) | read()) : (char) (c - 1));
+        }
+      } else {
+        buffer.append(StringItem.knownQualifier(rank));
+      }
+      int kind = read();
+      if (kind == COMBINATION) {
+        readNumber(read(), buffer);
+      } else if (kind != PLAIN_STRING) {
+        throw malformed();
+      }
+    }
+
+    private void readNumber(int b, StringBuilder buffer) {
+      if (b == BIGINTEGER) {
+        int length = 0;
+        for (int i = 0; i < 4; i++) {
+          length = (length << 8) | read();
+        }
+        if (length < 0 || length > key.length - position) {
+          throw malformed();
+        }
+        byte[] magnitude = Arrays.copyOfRange(key, position, position + length);
+        position += length;
+        buffer.append(new BigInteger(1, magnitude));
+      } else if (b >= NUMBER && b <= NUMBER + Long.BYTES) {
+        long value = 0;
+        for (int i = NUMBER; i < b; i++) {
+          value = (value << 8) | read();
+        }
+        buffer.append(value);
+      } else {
+        throw malformed();
+      }
+    }
+
+    private int read() {
+      if (position >= key.length) {
+        throw malformed();
+      }
+      return key[position++] & 0xFF;
+    }
+
+    IllegalArgumentException malformed() {
+      return new IllegalArgumentException("malformed sort key at offset " + position);
+    }
+  }
+}
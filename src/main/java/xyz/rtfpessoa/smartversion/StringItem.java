@@ -1,37 +1,159 @@
 package xyz.rtfpessoa.smartversion;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Properties;
-
-/** Represents a string in the version item list, usually a qualifier. */
-public record StringItem(String value, ComparisonMode mode) implements Item {
+import java.util.Map;
+
+/**
+ * Represents a string in the version item list, usually a qualifier.
+ *
+ * <p>The {@code rank} is the position of the qualifier in the well-known qualifier ordering (see
+ * {@link #qualifierRank(String, ComparisonMode)}), computed once when the item is created so that
+ * comparisons only fall back to comparing strings for two unknown qualifiers. The constructors
+ * reject a rank that is not the one of the value.
+ */
+public record StringItem(String value, ComparisonMode mode, int rank) implements Item {
   private static final List<String> QUALIFIERS =
       Arrays.asList("alpha", "beta", "milestone", "rc", "snapshot", "", "sp");
+
+  /** Rank of the empty qualifier, which the release qualifiers share. */
+  private static final int RELEASE_RANK = QUALIFIERS.indexOf("");
+
   private static final List<String> RELEASE_QUALIFIERS = Arrays.asList("ga", "final", "release");
 
-  private static final Properties ALIASES = new Properties();
+  private static final Map<String, String> ALIASES = Map.of("cr", "rc");
+
+  /** Rank of every well-known qualifier, release qualifiers rank the same as no qualifier. */
+  private static final Map<String, Integer> QUALIFIER_RANKS = new HashMap<>();
 
   static {
-    ALIASES.put("cr", "rc");
+    for (int i = 0; i < QUALIFIERS.size(); i++) {
+      QUALIFIER_RANKS.put(QUALIFIERS.get(i), i);
+    }
+    for (String qualifier : RELEASE_QUALIFIERS) {
+      QUALIFIER_RANKS.put(qualifier, RELEASE_RANK);
+    }
   }
 
   /**
    * A comparable value for the empty-string qualifier. This one is used to determine if a given
    * qualifier makes the version older than one without a qualifier, or more recent.
    */
-  private static final String RELEASE_VERSION_INDEX = String.valueOf(QUALIFIERS.indexOf(""));
+  private static final String MAX_VERSION_INDEX = String.valueOf(Integer.MAX_VALUE);
+
+  /** Rank of the qualifiers that are not well-known, these are then ordered lexically. */
+  static final int UNKNOWN_QUALIFIER_RANK = QUALIFIERS.size();
+
+  /** The shared item of every well-known qualifier, by mode. */
+  private static final Map<ComparisonMode, Map<String, StringItem>> POOL =
+      new EnumMap<>(ComparisonMode.class);
+
+  static {
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      Map<String, StringItem> items = new HashMap<>();
+      for (String qualifier : QUALIFIER_RANKS.keySet()) {
+        items.put(qualifier, new StringItem(qualifier, mode));
+      }
+      POOL.put(mode, items);
+    }
+  }
 
   /**
-   * A comparable value for the empty-string qualifier. This one is used to determine if a given
-   * qualifier makes the version older than one without a qualifier, or more recent.
+   * Returns the position of a qualifier in the well-known qualifier ordering, which is what {@link
+   * #comparableQualifier(String)} encodes as a string.
+   *
+   * @return the qualifier index, or {@link #UNKNOWN_QUALIFIER_RANK} for unknown qualifiers and for
+   *     every qualifier in SEMVER mode
    */
-  private static final String MAX_VERSION_INDEX = String.valueOf(Integer.MAX_VALUE);
+  static int qualifierRank(String qualifier, ComparisonMode mode) {
+    if (ComparisonMode.SEMVER.equals(mode)) {
+      return UNKNOWN_QUALIFIER_RANK;
+    }
+    Integer rank = qualifier == null ? null : QUALIFIER_RANKS.get(qualifier);
+    return rank == null ? UNKNOWN_QUALIFIER_RANK : rank;
+  }
+
+  /** Returns the well-known qualifier with the given rank, e.g. {@code ""} for release ones. */
+  static String knownQualifier(int rank) {
+    return QUALIFIERS.get(rank);
+  }
+
+  /**
+   * Returns the same value as {@link #compareTo(Item)} with a {@code null} item, computed from the
+   * qualifier rank instead of building the comparable strings.
+   */
+  static int compareQualifierToNull(String qualifier, int rank, ComparisonMode mode) {
+    switch (mode) {
+      case MAVEN:
+        // "<rank>" or "<rank>-<qualifier>" compared with "5"
+        return rank - RELEASE_RANK;
+      case MIXED:
+        // "<rank>" or "<rank>-<qualifier>" compared with "2147483647"
+        return rank == 2 ? 1 - MAX_VERSION_INDEX.length() : rank - 2;
+      default:
+        return qualifier.compareTo(MAX_VERSION_INDEX);
+    }
+  }
+
+  /**
+   * Returns the same value as comparing the comparable strings of two qualifiers, computed from
+   * their ranks.
+   */
+  static int compareQualifiers(String qualifier, int rank, String otherQualifier, int otherRank) {
+    if (rank != otherRank) {
+      return rank - otherRank;
+    }
+    return rank == UNKNOWN_QUALIFIER_RANK ? qualifier.compareTo(otherQualifier) : 0;
+  }
+
+  /**
+   * @throws IllegalArgumentException if {@code rank} is not the rank of {@code value} in {@code
+   *     mode}
+   */
+  public StringItem {
+    if (rank != qualifierRank(value, mode)) {
+      throw new IllegalArgumentException(
+          "Rank " + rank + " does not match the qualifier '" + value + "' in " + mode + " mode");
+    }
+  }
+
+  /** Creates a string item, computing the rank of the qualifier. */
+  public StringItem(String value, ComparisonMode mode) {
+    this(value, mode, qualifierRank(value, mode));
+  }
+
+  /** Returns the item of a qualifier, which is a shared instance for well-known qualifiers. */
+  static StringItem valueOf(String value, ComparisonMode mode) {
+    StringItem pooled = POOL.get(mode).get(value);
+    return pooled != null ? pooled : new StringItem(value, mode);
+  }
+
+  /**
+   * Returns the item of a qualifier with a known rank, shared like {@link #valueOf}.
+   *
+   * @throws IllegalArgumentException if {@code rank} is not the rank of {@code value}
+   */
+  static StringItem valueOf(String value, ComparisonMode mode, int rank) {
+    StringItem pooled = POOL.get(mode).get(value);
+    return pooled != null && pooled.rank == rank ? pooled : new StringItem(value, mode, rank);
+  }
+
+  /** Returns the shared items of the well-known qualifiers in every mode. */
+  static List<StringItem> pooled() {
+    List<StringItem> items = new ArrayList<>();
+    for (Map<String, StringItem> pool : POOL.values()) {
+      items.addAll(pool.values());
+    }
+    return items;
+  }
 
   public static StringItem newStringItem(
       String value, boolean followedByDigit, ComparisonMode mode) {
     if (ComparisonMode.SEMVER.equals(mode)) {
-      return new StringItem(value, mode);
+      return valueOf(value, mode);
     }
 
     if (followedByDigit && value.length() == 1) {
@@ -49,7 +171,7 @@ public record StringItem(String value, ComparisonMode mode) implements Item {
         default:
       }
     }
-    return new StringItem(ALIASES.getProperty(value, value), mode);
+    return valueOf(ALIASES.getOrDefault(value, value), mode);
   }
 
   @Override
@@ -76,30 +198,15 @@ public record StringItem(String value, ComparisonMode mode) implements Item {
       return qualifier;
     }
 
-    if (RELEASE_QUALIFIERS.contains(qualifier)) {
-      return String.valueOf(QUALIFIERS.indexOf(""));
-    }
-
-    int i = QUALIFIERS.indexOf(qualifier);
-
-    // Just returning an Integer with the index here is faster, but requires a lot of if/then/else
-    // to check for
-    // -1
-    //  or QUALIFIERS.size and then resort to lexical ordering. Most comparisons are decided by
-    // the first
-    // character,
-    // so this is still fast. If more characters are needed then it requires a lexical sort
-    // anyway.
-    return i == -1 ? (QUALIFIERS.size() + "-" + qualifier) : String.valueOf(i);
+    int i = qualifierRank(qualifier, mode);
+    return i == UNKNOWN_QUALIFIER_RANK ? (i + "-" + qualifier) : String.valueOf(i);
   }
 
   @Override
   public int compareTo(Item item) {
     if (item == null) {
-      return ComparisonMode.MAVEN.equals(mode)
-          ? comparableQualifier(value).compareTo(RELEASE_VERSION_INDEX) // 1-rc < 1, 1-ga > 1
-          : comparableQualifier(value)
-              .compareTo(MAX_VERSION_INDEX); // 1-rc < 1, 1-ga < 1, 1-foo < 1
+      // MAVEN: 1-rc < 1, 1-ga > 1, otherwise: 1-rc < 1, 1-ga < 1, 1-foo < 1
+      return compareQualifierToNull(value, rank, mode);
     }
     switch (item.getType()) {
       case LONG:
@@ -108,7 +215,8 @@ public record StringItem(String value, ComparisonMode mode) implements Item {
 
       case STRING:
         var stringItemToCompare = (StringItem) item;
-        return comparableQualifier(value).compareTo(comparableQualifier(stringItemToCompare.value));
+        return compareQualifiers(
+            value, rank, stringItemToCompare.value, stringItemToCompare.rank);
 
       case COMBINATION:
         var combinationItemToCompare = (CombinationItem) item;
@@ -0,0 +1,110 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.util.Collection;
+
+/**
+ * An immutable array of versions parsed in the same mode, compared many at a time against a single
+ * version, e.g. to find which candidates are newer than the version in use.
+ *
+ * <p>The {@link PrefixKey prefix keys} of the versions are kept in a {@code long[]}, so a batch
+ * comparison is a scan of that array against the key of the pivot, which settles the comparisons
+ * that differ in their first numbers or qualifier. The item trees are only compared for the
+ * versions the keys do not settle, after the scan.
+ */
+public final class VersionBatch {
+
+  private final Item.ComparisonMode mode;
+
+  private final SmartVersion[] versions;
+
+  private final long[] keys;
+
+  private VersionBatch(Item.ComparisonMode mode, SmartVersion[] versions, long[] keys) {
+    this.mode = mode;
+    this.versions = versions;
+    this.keys = keys;
+  }
+
+  /**
+   * Returns the batch of the versions, which must be parsed in {@code mode}. Lazy versions are
+   * parsed.
+   *
+   * @throws IllegalArgumentException if a version is not parsed in {@code mode}
+   */
+  public static VersionBatch of(Collection<SmartVersion> versions, Item.ComparisonMode mode) {
+    SmartVersion[] array = versions.toArray(new SmartVersion[0]);
+    long[] keys = new long[array.length];
+    for (int i = 0; i < array.length; i++) {
+      checkMode(array[i], mode);
+      keys[i] = array[i].prefixKey();
+    }
+    return new VersionBatch(mode, array, keys);
+  }
+
+  private static void checkMode(SmartVersion version, Item.ComparisonMode mode) {
+    if (!mode.equals(version.getMode())) {
+      throw new IllegalArgumentException("Cannot compare versions from different modes");
+    }
+  }
+
+  public int size() {
+    return versions.length;
+  }
+
+  public Item.ComparisonMode getMode() {
+    return mode;
+  }
+
+  /** Returns the version at {@code index}, in the order the batch was created with. */
+  public SmartVersion get(int index) {
+    return versions[index];
+  }
+
+  /**
+   * Compares every version of the batch with {@code pivot}, writing {@code -1}, {@code 0} or {@code
+   * 1} to {@code out} at the index of the version, with the sign of {@code
+   * get(i).compareTo(pivot)}.
+   *
+   * @throws IllegalArgumentException if {@code pivot} is not parsed in the mode of the batch, or
+   *     {@code out} is shorter than the batch
+   */
+  public void compareAll(SmartVersion pivot, int[] out) {
+    checkMode(pivot, mode);
+    if (out.length < keys.length) {
+      throw new IllegalArgumentException(
+          "out has " + out.length + " elements for " + keys.length + " versions");
+    }
+    long pivotKey = pivot.prefixKey();
+    for (int i = 0; i < keys.length; i++) {
+      out[i] = PrefixKey.compare(keys[i], pivotKey);
+    }
+    for (int i = 0; i < keys.length; i++) {
+      int result = out[i];
+      if (result == PrefixKey.UNDECIDED) {
+        result = versions[i].compareTo(pivot);
+      }
+      out[i] = Integer.signum(result);
+    }
+  }
+
+  /**
+   * Returns the number of versions of the batch that are higher than {@code pivot}.
+   *
+   * @throws IllegalArgumentException if {@code pivot} is not parsed in the mode of the batch
+   */
+  public int countNewerThan(SmartVersion pivot) {
+    checkMode(pivot, mode);
+    long pivotKey = pivot.prefixKey();
+    int count = 0;
+    for (int i = 0; i < keys.length; i++) {
+      int result = PrefixKey.compare(keys[i], pivotKey);
+      if (result == PrefixKey.UNDECIDED) {
+        result = versions[i].compareTo(pivot);
+      }
+      if (result > 0) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
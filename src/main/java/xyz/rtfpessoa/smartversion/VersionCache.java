@@ -0,0 +1,189 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A bounded, thread-safe cache of parsed versions, keyed by the version string and the comparison
+ * mode.
+ *
+ * <p>Lookups that hit the cache do not take any lock. When the cache is full, new versions replace
+ * the ones that were not used recently, picked with the CLOCK (second chance) approximation of LRU:
+ * every hit marks the entry as used, and the eviction hand clears that mark once before evicting
+ * an entry.
+ *
+ * <p>The cached instances are shared by every caller, which is safe as versions are immutable.
+ */
+public final class VersionCache {
+
+  /** The maximum size of the cache used by {@link SmartVersion#of(String, Item.ComparisonMode)}. */
+  public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+  private static final String SIZE_PROPERTY = "smartversion.cache.size";
+
+  private static final VersionCache SHARED =
+      new VersionCache(sharedMaximumSize(System.getProperty(SIZE_PROPERTY)));
+
+  private final ConcurrentHashMap<Key, Entry> entries;
+
+  /** The ring of entries the eviction hand goes over, guarded by {@code this}. */
+  private final Entry[] clock;
+
+  private int size;
+
+  private int hand;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder evictions = new LongAdder();
+
+  public VersionCache(int maximumSize) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+    }
+    this.entries = new ConcurrentHashMap<>(maximumSize);
+    this.clock = new Entry[maximumSize];
+  }
+
+  /**
+   * Returns the size of the shared cache set by the system property, or {@link
+   * #DEFAULT_MAXIMUM_SIZE} with a warning if it is not a positive number, so a bad setting does not
+   * fail the initialization of the class.
+   */
+  static int sharedMaximumSize(@Nullable String property) {
+    if (property == null) {
+      return DEFAULT_MAXIMUM_SIZE;
+    }
+    try {
+      int size = Integer.parseInt(property.trim());
+      if (size > 0) {
+        return size;
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    System.getLogger(VersionCache.class.getName())
+        .log(
+            System.Logger.Level.WARNING,
+            "Ignoring {0}={1}, which is not a positive number, using the default size {2}",
+            SIZE_PROPERTY,
+            property,
+            String.valueOf(DEFAULT_MAXIMUM_SIZE));
+    return DEFAULT_MAXIMUM_SIZE;
+  }
+
+  /**
+   * Returns the cache used by {@link SmartVersion#of(String, Item.ComparisonMode)}, whose size can
+   * be set with the {@code smartversion.cache.size} system property.
+   */
+  public static VersionCache shared() {
+    return SHARED;
+  }
+
+  /** Returns the parsed version, parsing and caching it if needed. */
+  public SmartVersion get(String version, Item.ComparisonMode mode) {
+    Key key = new Key(version, mode);
+    Entry entry = entries.get(key);
+    if (entry != null) {
+      if (!entry.used) {
+        entry.used = true;
+      }
+      hits.increment();
+      return entry.value;
+    }
+
+    misses.increment();
+    VersionCacheEvent event = FlightRecorderEvents.beginCacheMiss();
+    boolean eviction = false;
+    // parse outside the lock, a concurrent miss for the same key only wastes the parsing
+    SmartVersion value = new SmartVersion(version, mode);
+    synchronized (this) {
+      entry = entries.get(key);
+      if (entry != null) {
+        return entry.value;
+      }
+      entry = new Entry(key, value);
+      if (size < clock.length) {
+        clock[size++] = entry;
+      } else {
+        evict(entry);
+        eviction = true;
+      }
+      entries.put(key, entry);
+    }
+    if (event != null) {
+      event.commit(mode, version, eviction, size());
+    }
+    return value;
+  }
+
+  /** Replaces the first entry that was not used since the hand last passed over it. */
+  private void evict(Entry replacement) {
+    while (true) {
+      Entry candidate = clock[hand];
+      if (candidate.used) {
+        candidate.used = false;
+      } else {
+        entries.remove(candidate.key);
+        clock[hand] = replacement;
+        evictions.increment();
+        hand = (hand + 1) % clock.length;
+        return;
+      }
+      hand = (hand + 1) % clock.length;
+    }
+  }
+
+  /** Returns the number of cached versions. */
+  public int size() {
+    return entries.size();
+  }
+
+  public int maximumSize() {
+    return clock.length;
+  }
+
+  /** Removes all the cached versions, the statistics are kept. */
+  public synchronized void clear() {
+    entries.clear();
+    Arrays.fill(clock, null);
+    size = 0;
+    hand = 0;
+  }
+
+  public Stats stats() {
+    return new Stats(hits.sum(), misses.sum(), evictions.sum());
+  }
+
+  /** Counters of the cache since it was created. */
+  public record Stats(long hitCount, long missCount, long evictionCount) {
+
+    public long requestCount() {
+      return hitCount + missCount;
+    }
+
+    public double hitRate() {
+      long requests = requestCount();
+      return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+  }
+
+  private record Key(String version, Item.ComparisonMode mode) {}
+
+  private static final class Entry {
+    final Key key;
+
+    final SmartVersion value;
+
+    volatile boolean used;
+
+    Entry(Key key, SmartVersion value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+}
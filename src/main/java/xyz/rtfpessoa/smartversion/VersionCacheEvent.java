@@ -0,0 +1,47 @@
+package xyz.rtfpessoa.smartversion;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of a {@link VersionCache} miss, which covers parsing and caching the
+ * version, disabled unless the recording settings enable {@code
+ * xyz.rtfpessoa.smartversion.CacheMiss}. Hits are not recorded.
+ */
+@Name("xyz.rtfpessoa.smartversion.CacheMiss")
+@Label("Version Cache Miss")
+@Category("Smart Version")
+@Description("Version that was parsed and added to a version cache")
+@Enabled(false)
+@StackTrace(false)
+final class VersionCacheEvent extends Event {
+
+  @Label("Mode")
+  String mode;
+
+  @Label("Version")
+  String version;
+
+  @Label("Eviction")
+  @Description("Whether another version was evicted to make room for this one")
+  boolean eviction;
+
+  @Label("Cache Size")
+  int cacheSize;
+
+  /** Commits the event when it is enabled and over its threshold. */
+  void commit(Item.ComparisonMode mode, String version, boolean eviction, int cacheSize) {
+    if (shouldCommit()) {
+      this.mode = mode.name();
+      this.version = version;
+      this.eviction = eviction;
+      this.cacheSize = cacheSize;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,405 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An immutable, columnar catalog of versions parsed in the same mode, for scans over many versions.
+ *
+ * <p>Every version is a row, in the order the versions were given, duplicates included. The
+ * versions are not kept as item trees but in columns:
+ *
+ * <ul>
+ *   <li>one {@code long[]} for each of the first {@link #NUMBER_COLUMNS} numbers of the versions;
+ *   <li>an {@code int[]} of dictionary codes for the first qualifier of the versions, where the
+ *       well-known qualifiers take their {@link StringItem} rank as code, so qualifiers of equal
+ *       rank such as {@code ga}, {@code final} and {@code release} share a code;
+ *   <li>a bit set of the pre-release versions;
+ *   <li>a spill area with the {@link SortKey sort keys} of the versions that are more than their
+ *       first numbers, e.g. {@code 1.0-rc1} or {@code 1.2.3.4}.
+ * </ul>
+ *
+ * <p>Queries such as {@code catalog.filter(row -> catalog.number(row, 0) == 3 &&
+ * !catalog.isPreRelease(row))} only read the columns they need. Rows are compared by their number
+ * columns, and by their sort keys only when those are equal or not numbers, so where {@code
+ * compareTo} is not transitive (see {@link SortKey}) the order is the one of the keys.
+ */
+public final class VersionCatalog {
+
+  /** The number of leading numbers of the versions kept in columns. */
+  public static final int NUMBER_COLUMNS = 3;
+
+  /** The value of a number column whose item, or an item before it, is not a number. */
+  public static final long NOT_A_NUMBER = -1;
+
+  /** The code of the qualifier column for versions without a qualifier. */
+  public static final int NO_QUALIFIER = -1;
+
+  private final Item.ComparisonMode mode;
+
+  private final String[] originals;
+
+  /** The leading numbers of the versions, one array per column. */
+  private final long[][] numbers;
+
+  /** The number of leading numbers of each version, {@code NUMBER_COLUMNS + 1} for more. */
+  private final byte[] numberCounts;
+
+  private final int[] qualifiers;
+
+  private final String[] dictionary;
+
+  private final BitSet preReleases;
+
+  /** The sort keys of the versions that are not only numbers, empty for the other versions. */
+  private final byte[] spillKeys;
+
+  private final int[] spillOffsets;
+
+  private VersionCatalog(Builder builder) {
+    this.mode = builder.mode;
+    this.originals = builder.originals;
+    this.numbers = builder.numbers;
+    this.numberCounts = builder.numberCounts;
+    this.qualifiers = builder.qualifiers;
+    this.dictionary = builder.dictionary.toArray(new String[0]);
+    this.preReleases = builder.preReleases;
+    this.spillKeys = Arrays.copyOf(builder.spillKeys, builder.spillOffsets[originals.length]);
+    this.spillOffsets = builder.spillOffsets;
+  }
+
+  /**
+   * Returns the catalog of the versions, which must be parsed in {@code mode}.
+   *
+   * @throws IllegalArgumentException if a version is not parsed in {@code mode}
+   */
+  public static VersionCatalog copyOf(
+      Collection<SmartVersion> versions, Item.ComparisonMode mode) {
+    IndexBuildEvent event = FlightRecorderEvents.beginIndexBuild();
+    Builder builder = new Builder(mode, versions.size());
+    for (SmartVersion version : versions) {
+      if (!mode.equals(version.getMode())) {
+        throw new IllegalArgumentException("Cannot compare versions from different modes");
+      }
+      builder.add(version);
+    }
+    FlightRecorderEvents.commitIndexBuild(
+        event, VersionCatalog.class, mode, versions.size(), versions.size());
+    return new VersionCatalog(builder);
+  }
+
+  /** Returns the catalog of the versions the strings parse to in {@code mode}. */
+  public static VersionCatalog parse(Collection<String> versions, Item.ComparisonMode mode) {
+    IndexBuildEvent event = FlightRecorderEvents.beginIndexBuild();
+    Builder builder = new Builder(mode, versions.size());
+    for (String version : versions) {
+      builder.add(new SmartVersion(version, mode));
+    }
+    FlightRecorderEvents.commitIndexBuild(
+        event, VersionCatalog.class, mode, versions.size(), versions.size());
+    return new VersionCatalog(builder);
+  }
+
+  public int size() {
+    return originals.length;
+  }
+
+  public Item.ComparisonMode getMode() {
+    return mode;
+  }
+
+  /** Returns the version of a row, which is parsed again when it is first compared. */
+  public SmartVersion get(int row) {
+    return SmartVersion.lazy(getOriginal(row), mode);
+  }
+
+  public String getOriginal(int row) {
+    Objects.checkIndex(row, originals.length);
+    return originals[row];
+  }
+
+  /**
+   * Returns a leading number of the version of a row, e.g. the column 0 of {@code 3.1-rc1} is 3.
+   *
+   * @return the number, 0 if the version only has fewer numbers, e.g. the column 2 of {@code 3.1},
+   *     or {@link #NOT_A_NUMBER} if the item in that column or before it is not a number, e.g. the
+   *     column 2 of {@code 3-rc1}
+   */
+  public long number(int row, int column) {
+    Objects.checkIndex(column, NUMBER_COLUMNS);
+    return numbers[column][row];
+  }
+
+  /**
+   * Returns the first qualifier of the version of a row, or {@code null} if it has none. A
+   * well-known qualifier is returned with the spelling of its rank, e.g. {@code ""} for {@code ga}.
+   */
+  public @Nullable String qualifier(int row) {
+    int code = qualifiers[row];
+    return code == NO_QUALIFIER ? null : dictionary[code];
+  }
+
+  /** Returns whether the version of a row is a pre-release, see {@link SmartVersion}. */
+  public boolean isPreRelease(int row) {
+    Objects.checkIndex(row, originals.length);
+    return preReleases.get(row);
+  }
+
+  /** Returns the rows whose version matches {@code predicate}, in ascending row order. */
+  public int[] filter(IntPredicate predicate) {
+    int[] rows = new int[originals.length];
+    int count = 0;
+    for (int row = 0; row < rows.length; row++) {
+      if (predicate.test(row)) {
+        rows[count++] = row;
+      }
+    }
+    return Arrays.copyOf(rows, count);
+  }
+
+  /**
+   * Returns the rows whose version has {@code qualifier}, or a qualifier of the same rank, as first
+   * qualifier.
+   */
+  public int[] withQualifier(String qualifier) {
+    int rank = StringItem.newStringItem(qualifier, false, mode).rank();
+    int code =
+        rank != StringItem.UNKNOWN_QUALIFIER_RANK
+            ? rank
+            : Arrays.asList(dictionary).indexOf(qualifier);
+    return code == NO_QUALIFIER ? new int[0] : filter(row -> qualifiers[row] == code);
+  }
+
+  /**
+   * Compares the versions of two rows.
+   *
+   * @return a negative number, zero or a positive number with the same sign as {@link
+   *     SmartVersion#compareTo(SmartVersion)} for the versions of the rows
+   */
+  public int compareRows(int row, int otherRow) {
+    for (long[] column : numbers) {
+      long a = column[row];
+      long b = column[otherRow];
+      if (a == NOT_A_NUMBER || b == NOT_A_NUMBER) {
+        return compareKeys(row, otherRow);
+      }
+      if (a != b) {
+        // the items before are equal numbers, and a missing number compares like a zero
+        return a < b ? -1 : 1;
+      }
+    }
+    if (!isSpilled(row) && !isSpilled(otherRow)) {
+      return 0;
+    }
+    return compareKeys(row, otherRow);
+  }
+
+  /** Compares the sort keys of two rows, at least one of which is spilled, in place. */
+  private int compareKeys(int row, int otherRow) {
+    if (!isSpilled(otherRow)) {
+      return -compareKeys(otherRow, row);
+    }
+    int from = spillOffsets[otherRow];
+    int to = spillOffsets[otherRow + 1];
+    if (isSpilled(row)) {
+      return Arrays.compareUnsigned(
+          spillKeys, spillOffsets[row], spillOffsets[row + 1], spillKeys, from, to);
+    }
+    return SortKey.compareNumbers(mode, numbers, row, numberCounts[row], spillKeys, from, to);
+  }
+
+  private boolean isSpilled(int row) {
+    return spillOffsets[row] != spillOffsets[row + 1];
+  }
+
+  /** Returns the rows in ascending order of their versions, equal versions by row. */
+  public int[] sortedRows() {
+    Integer[] order = new Integer[originals.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    // stable, so equal versions stay in row order
+    Arrays.sort(order, this::compareRows);
+    int[] rows = new int[order.length];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = order[i];
+    }
+    return rows;
+  }
+
+  /** Returns the row of the lowest version among {@code rows}, or -1 if there are none. */
+  public int minRow(int[] rows) {
+    int min = -1;
+    for (int row : rows) {
+      if (min < 0 || compareRows(row, min) < 0) {
+        min = row;
+      }
+    }
+    return min;
+  }
+
+  /** Returns the row of the highest version among {@code rows}, or -1 if there are none. */
+  public int maxRow(int[] rows) {
+    int max = -1;
+    for (int row : rows) {
+      if (max < 0 || compareRows(row, max) > 0) {
+        max = row;
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Returns the lowest version of each group of rows, e.g. {@code minBy(row -> catalog.number(row,
+   * 0))} for the lowest version of each major, in the order the groups are first seen.
+   */
+  public <K> Map<K, SmartVersion> minBy(IntFunction<? extends K> group) {
+    return bestBy(group, -1);
+  }
+
+  /** Returns the highest version of each group of rows, like {@link #minBy(IntFunction)}. */
+  public <K> Map<K, SmartVersion> maxBy(IntFunction<? extends K> group) {
+    return bestBy(group, 1);
+  }
+
+  private <K> Map<K, SmartVersion> bestBy(IntFunction<? extends K> group, int sign) {
+    Map<K, Integer> best = new LinkedHashMap<>();
+    for (int row = 0; row < originals.length; row++) {
+      int current = row;
+      best.merge(
+          group.apply(row),
+          row,
+          (previous, ignored) -> sign * compareRows(current, previous) > 0 ? current : previous);
+    }
+    Map<K, SmartVersion> versions = new LinkedHashMap<>();
+    best.forEach((key, row) -> versions.put(key, get(row)));
+    return versions;
+  }
+
+  /** Returns the original strings of the versions, e.g. {@code [1.0, 1.1, 2.0]}. */
+  @Override
+  public String toString() {
+    return Arrays.toString(originals);
+  }
+
+  /** Fills the columns one version at a time. */
+  private static final class Builder {
+
+    final Item.ComparisonMode mode;
+
+    final String[] originals;
+
+    final long[][] numbers;
+
+    final byte[] numberCounts;
+
+    final int[] qualifiers;
+
+    final Map<String, Integer> codes = new HashMap<>();
+
+    final List<String> dictionary = new ArrayList<>();
+
+    final BitSet preReleases = new BitSet();
+
+    byte[] spillKeys = new byte[64];
+
+    final int[] spillOffsets;
+
+    int size;
+
+    Builder(Item.ComparisonMode mode, int capacity) {
+      this.mode = mode;
+      this.originals = new String[capacity];
+      this.numbers = new long[NUMBER_COLUMNS][capacity];
+      this.numberCounts = new byte[capacity];
+      this.qualifiers = new int[capacity];
+      this.spillOffsets = new int[capacity + 1];
+      // the well-known qualifiers take their rank as code
+      for (int rank = 0; rank < StringItem.UNKNOWN_QUALIFIER_RANK; rank++) {
+        code(StringItem.knownQualifier(rank));
+      }
+    }
+
+    void add(SmartVersion version) {
+      int row = size++;
+      ListItem items = version.getItems();
+      originals[row] = version.getOriginal();
+
+      int count = 0;
+      while (count < items.size()
+          && count <= NUMBER_COLUMNS
+          && items.get(count).getType() == Item.Type.LONG) {
+        count++;
+      }
+      for (int column = 0; column < NUMBER_COLUMNS; column++) {
+        if (column < count) {
+          numbers[column][row] = ((LongItem) items.get(column)).value();
+        } else if (count < items.size()) {
+          // the item at count is not a number, so neither are the columns after it
+          numbers[column][row] = NOT_A_NUMBER;
+        }
+      }
+      numberCounts[row] = (byte) count;
+
+      StringItem qualifier = firstQualifier(items);
+      qualifiers[row] = qualifier == null ? NO_QUALIFIER : code(qualifier);
+      preReleases.set(row, version.isPreRelease());
+
+      int offset = spillOffsets[row];
+      if (count > NUMBER_COLUMNS || count < items.size()) {
+        byte[] key = version.toSortKey();
+        if (offset + key.length > spillKeys.length) {
+          spillKeys = Arrays.copyOf(spillKeys, Math.max(2 * spillKeys.length, offset + key.length));
+        }
+        System.arraycopy(key, 0, spillKeys, offset, key.length);
+        offset += key.length;
+      }
+      spillOffsets[row + 1] = offset;
+    }
+
+    /** Returns the rank of a well-known qualifier, or the dictionary code of its value. */
+    private int code(StringItem qualifier) {
+      int rank = qualifier.rank();
+      return rank != StringItem.UNKNOWN_QUALIFIER_RANK ? rank : code(qualifier.value());
+    }
+
+    private int code(String qualifier) {
+      return codes.computeIfAbsent(
+          qualifier,
+          value -> {
+            dictionary.add(value);
+            return dictionary.size() - 1;
+          });
+    }
+
+    private static @Nullable StringItem firstQualifier(ListItem items) {
+      for (Item item : items) {
+        switch (item.getType()) {
+          case STRING:
+            return (StringItem) item;
+          case COMBINATION:
+            return ((CombinationItem) item).getStringPart();
+          case LIST:
+            StringItem qualifier = firstQualifier((ListItem) item);
+            if (qualifier != null) {
+              return qualifier;
+            }
+            break;
+          default:
+            break;
+        }
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.util.List;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ *
+ *
+ * <h2>A compiled version constraint.</h2>
+ *
+ * <p>The syntax depends on the comparison mode:
+ *
+ * <ul>
+ *   <li>MAVEN (DEFAULT): Maven version ranges, e.g. {@code [1.0,2.0)}, {@code (,1.5]} or the union
+ *       {@code (,1.0],[1.2,)}. Like Maven, a version without brackets is only a recommendation and
+ *       matches every version.
+ *   <li>SEMVER and MIXED: npm ranges, e.g. {@code ^1.2.3}, {@code ~1.2}, {@code >=1.0.0 <2.0.0},
+ *       {@code 1.2.x}, {@code 1.2.3 - 2.3} or {@code 1.x || >=2.5.0}. Like npm, a pre-release
+ *       version only matches when a version of the same comparator set with the same {@code
+ *       major.minor.patch} is a pre-release, so {@code ^1.2.3} does not match {@code 1.3.0-beta}.
+ * </ul>
+ *
+ * <p>Constraints are parsed once into the union of {@link VersionRange}s, whose bounds are parsed
+ * versions, so testing a version does not parse anything. Constraints are immutable and equal when
+ * they come from the same string in the same mode, so they can be shared and cached.
+ */
+public final class VersionConstraint implements Predicate<SmartVersion> {
+
+  private final String spec;
+
+  private final Item.ComparisonMode mode;
+
+  private final VersionRange[] ranges;
+
+  /**
+   * The pre-release versions written in each range, that let pre-releases of the same release
+   * match, or {@code null} when every pre-release can match.
+   */
+  private final SmartVersion @Nullable [][] preReleases;
+
+  VersionConstraint(
+      String spec,
+      Item.ComparisonMode mode,
+      VersionRange[] ranges,
+      SmartVersion @Nullable [][] preReleases) {
+    this.spec = spec;
+    this.mode = mode;
+    this.ranges = ranges;
+    this.preReleases = preReleases;
+  }
+
+  /** Parses a Maven version range. */
+  public static VersionConstraint parse(String spec) {
+    return parse(spec, Item.ComparisonMode.MAVEN);
+  }
+
+  /**
+   * Parses a Maven version range in MAVEN mode, or an npm range otherwise.
+   *
+   * @throws IllegalArgumentException if the constraint is not valid
+   */
+  public static VersionConstraint parse(String spec, Item.ComparisonMode mode) {
+    if (Item.ComparisonMode.MAVEN.equals(mode)) {
+      return ConstraintParser.parseMaven(spec);
+    }
+    return ConstraintParser.parseNpm(spec, mode);
+  }
+
+  /**
+   * Returns whether the version matches the constraint.
+   *
+   * @throws IllegalArgumentException if the version is not parsed in the mode of the constraint
+   */
+  @Override
+  public boolean test(SmartVersion version) {
+    if (!mode.equals(version.getMode())) {
+      throw new IllegalArgumentException("Cannot compare versions from different modes");
+    }
+    for (int i = 0; i < ranges.length; i++) {
+      if (ranges[i].contains(version) && allowsPreRelease(i, version)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean allowsPreRelease(int range, SmartVersion version) {
+    if (preReleases == null || !version.isPreRelease()) {
+      return true;
+    }
+    for (SmartVersion preRelease : preReleases[range]) {
+      if (sameRelease(version.getItems(), preRelease.getItems())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns whether the versions have the same {@code major.minor.patch}. */
+  private static boolean sameRelease(ListItem a, ListItem b) {
+    for (int i = 0; i < 3; i++) {
+      Item x = releaseItem(a, i);
+      Item y = releaseItem(b, i);
+      int result;
+      if (x == null) {
+        result = y == null ? 0 : y.compareTo(null);
+      } else {
+        result = x.compareTo(y);
+      }
+      if (result != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static @Nullable Item releaseItem(ListItem items, int index) {
+    for (int i = 0; i <= index; i++) {
+      if (i == items.size() || items.get(i).getType() == Item.Type.LIST) {
+        return null;
+      }
+    }
+    return items.get(index);
+  }
+
+  /** Returns the ranges matched by the constraint, in ascending order in MAVEN mode. */
+  public List<VersionRange> getRanges() {
+    return List.of(ranges);
+  }
+
+  public Item.ComparisonMode getMode() {
+    return mode;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return (o instanceof VersionConstraint)
+        && spec.equals(((VersionConstraint) o).spec)
+        && mode.equals(((VersionConstraint) o).mode);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * spec.hashCode() + mode.ordinal();
+  }
+
+  @Override
+  public String toString() {
+    return spec;
+  }
+}
@@ -0,0 +1,402 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.math.BigInteger;
+import java.util.Locale;
+
+/**
+ * Hand-written scanners that turn a version string into its {@link ListItem} tree.
+ *
+ * <p>The parsers keep no state between calls and only allocate the items that end up in the tree.
+ */
+final class VersionParser {
+
+  private static final int MAX_LONGITEM_LENGTH = 18;
+
+  private static final byte OTHER = 0;
+
+  private static final byte DIGIT = 1;
+
+  private static final byte LETTER = 2;
+
+  private static final byte DOT = 3;
+
+  private static final byte HYPHEN = 4;
+
+  /** Character class of every ASCII character, used in place of {@code Character.isDigit}. */
+  private static final byte[] ASCII_TYPES = new byte[0x80];
+
+  private static final char[] ASCII_LOWER_CASE = new char[0x80];
+
+  static {
+    for (char c = 0; c < 0x80; c++) {
+      ASCII_LOWER_CASE[c] = (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+      if (c >= '0' && c <= '9') {
+        ASCII_TYPES[c] = DIGIT;
+      } else if (ASCII_LOWER_CASE[c] >= 'a' && ASCII_LOWER_CASE[c] <= 'z') {
+        ASCII_TYPES[c] = LETTER;
+      } else if (c == '.') {
+        ASCII_TYPES[c] = DOT;
+      } else if (c == '-') {
+        ASCII_TYPES[c] = HYPHEN;
+      }
+    }
+  }
+
+  private VersionParser() {}
+
+  /** Parses a version with the MAVEN parser in MAVEN mode and with the SemVer one otherwise. */
+  static ListItem parse(String version, Item.ComparisonMode mode) {
+    return Item.ComparisonMode.MAVEN.equals(mode)
+        ? parseMaven(version)
+        : parseSemVer(version, mode);
+  }
+
+  /**
+   * Parses a version in MAVEN mode, following the same rules as {@code
+   * org.apache.maven.artifact.versioning.ComparableVersion}.
+   *
+   * <p>The input is walked once using offsets: tokens are lower cased and numbers are parsed in
+   * place, so the only allocations are the items of the resulting (normalized) tree.
+   */
+  static ListItem parseMaven(CharSequence version) {
+    ListItem items = parseMaven(version, true);
+    if (items == null) {
+      // lower casing outside ASCII can change the length of the string, so do it upfront
+      items = parseMaven(version.toString().toLowerCase(Locale.ENGLISH), false);
+    }
+    return items;
+  }
+
+  /** Returns {@code null} when {@code asciiOnly} is set and a non-ASCII character is found. */
+  @SuppressWarnings("checkstyle:innerassignment")
+  private static ListItem parseMaven(CharSequence version, boolean asciiOnly) {
+    Item.ComparisonMode mode = Item.ComparisonMode.MAVEN;
+    ListItem items = new ListItem(mode);
+
+    ListItem list = items;
+
+    // every sub-list is added as the last item of the previous one, so counting them is enough to
+    // find them again when normalizing
+    int subLists = 0;
+
+    boolean isDigit = false;
+
+    boolean isCombination = false;
+
+    int startIndex = 0;
+
+    // where the digits of the current token start, only meaningful for combinations
+    int digitIndex = 0;
+
+    int length = version.length();
+    for (int i = 0; i < length; i++) {
+      char c = version.charAt(i);
+
+      byte type;
+      if (c < 0x80) {
+        type = ASCII_TYPES[c];
+      } else if (asciiOnly) {
+        return null;
+      } else {
+        type = Character.isDigit(c) ? DIGIT : OTHER;
+      }
+
+      if (type == DOT) {
+        if (i == startIndex) {
+          list.add(LongItem.ZERO);
+        } else {
+          list.add(parseToken(version, startIndex, i, isCombination, isDigit, digitIndex));
+        }
+        isCombination = false;
+        startIndex = i + 1;
+      } else if (type == HYPHEN) {
+        if (i == startIndex) {
+          list.add(LongItem.ZERO);
+        } else {
+          // X-1 is going to be treated as X1
+          if (!isDigit && i != length - 1 && isDigit(version.charAt(i + 1), asciiOnly)) {
+            isCombination = true;
+            continue;
+          }
+          list.add(parseToken(version, startIndex, i, isCombination, isDigit, digitIndex));
+        }
+        startIndex = i + 1;
+
+        list.add(list = new ListItem(mode));
+        subLists++;
+        isCombination = false;
+      } else if (type == DIGIT) {
+        if (!isDigit) {
+          digitIndex = i;
+
+          if (i > startIndex) {
+            // X1
+            isCombination = true;
+
+            if (!list.isEmpty()) {
+              list.add(list = new ListItem(mode));
+              subLists++;
+            }
+          }
+        }
+
+        isDigit = true;
+      } else {
+        if (isDigit && i > startIndex) {
+          list.add(parseToken(version, startIndex, i, isCombination, true, digitIndex));
+          startIndex = i;
+
+          list.add(list = new ListItem(mode));
+          subLists++;
+          isCombination = false;
+        }
+
+        isDigit = false;
+      }
+    }
+
+    if (length > startIndex) {
+      // 1.0.0.X1 < 1.0.0-X2
+      // treat .X as -X for any string qualifier X
+      if (!isDigit && !list.isEmpty()) {
+        list.add(list = new ListItem(mode));
+        subLists++;
+      }
+
+      list.add(parseToken(version, startIndex, length, isCombination, isDigit, digitIndex));
+    }
+
+    normalize(items, subLists);
+
+    return items;
+  }
+
+  /** Normalizes the innermost sub-list first, as each list depends on its normalized sub-list. */
+  private static void normalize(ListItem items, int subLists) {
+    if (subLists == 0) {
+      items.normalize();
+      return;
+    }
+
+    ListItem[] lists = new ListItem[subLists + 1];
+    ListItem list = items;
+    for (int i = 0; i <= subLists; i++) {
+      lists[i] = list;
+      if (i < subLists) {
+        list = (ListItem) list.get(list.size() - 1);
+      }
+    }
+    for (int i = subLists; i >= 0; i--) {
+      lists[i].normalize();
+    }
+  }
+
+  private static Item parseToken(
+      CharSequence version,
+      int start,
+      int end,
+      boolean isCombination,
+      boolean isDigit,
+      int digitIndex) {
+    Item.ComparisonMode mode = Item.ComparisonMode.MAVEN;
+    if (isCombination) {
+      // the string part of X-1 does not include the hyphen
+      int stringEnd = version.charAt(digitIndex - 1) == '-' ? digitIndex - 1 : digitIndex;
+      return CombinationItem.of(
+          StringItem.newStringItem(lowerCase(version, start, stringEnd), true, mode),
+          parseNumber(version, digitIndex, end));
+    } else if (isDigit) {
+      return parseNumber(version, start, end);
+    }
+    return StringItem.newStringItem(lowerCase(version, start, end), false, mode);
+  }
+
+  /**
+   * Parses a version in SEMVER or MIXED mode.
+   *
+   * <p>Build metadata (everything after the first '<code>+</code>') is ignored. Each '<code>.
+   * </code>' separated part is split into numbers and words, and every token after the first one
+   * in a part starts a new sub-list. A single <code>a</code>, <code>b</code> or <code>m</code>
+   * followed by digits is read as a qualifier and its version, e.g. <code>a1</code> =&gt; <code>
+   * [alpha, [1]]</code> in MIXED mode. Any other character is ignored.
+   */
+  static ListItem parseSemVer(String version, Item.ComparisonMode mode) {
+    ListItem items = parseSemVer(version, mode, true);
+    if (items == null) {
+      // lower casing outside ASCII can change the length of the string and add new word breaks
+      items = parseSemVer(version.toLowerCase(Locale.ENGLISH), mode, false);
+    }
+    return items;
+  }
+
+  /** Returns {@code null} when {@code asciiOnly} is set and a non-ASCII character is found. */
+  private static ListItem parseSemVer(String version, Item.ComparisonMode mode, boolean asciiOnly) {
+    ListItem items = new ListItem(mode);
+    ListItem list = items;
+
+    int end = version.indexOf('+');
+    if (end == -1) {
+      end = version.length();
+    }
+
+    // number of tokens already read from the current '.' separated part
+    int tokenIndex = 0;
+
+    int i = 0;
+    while (i < end) {
+      char c = version.charAt(i);
+      if (c >= 0x80) {
+        if (asciiOnly) {
+          return null;
+        }
+        // only ASCII letters and digits are part of a token
+        i++;
+        continue;
+      }
+
+      byte type = ASCII_TYPES[c];
+      if (type == DOT) {
+        tokenIndex = 0;
+        i++;
+        continue;
+      }
+
+      if (type == DIGIT) {
+        int start = i;
+        i = skipAsciiDigits(version, i + 1, end);
+        if (tokenIndex++ != 0) {
+          list.add(list = new ListItem(mode));
+        }
+        list.add(parseNumber(version, start, i));
+        continue;
+      }
+
+      if (type != LETTER) {
+        i++;
+        continue;
+      }
+
+      int start = i;
+      do {
+        i++;
+      } while (i < end && isAsciiLetter(version.charAt(i)));
+
+      if (tokenIndex++ != 0) {
+        list.add(list = new ListItem(mode));
+      }
+
+      if (items.size() < 3) {
+        fillMissingMajorMinorPatch(items);
+      }
+
+      c = ASCII_LOWER_CASE[c];
+      if (i - start == 1 && (c == 'a' || c == 'b' || c == 'm') && i < end) {
+        int digitsEnd = skipAsciiDigits(version, i, end);
+        if (digitsEnd > i) {
+          // a1 = alpha-1, b1 = beta-1, m1 = milestone-1
+          list.add(StringItem.newStringItem(String.valueOf(c), true, mode));
+          list.add(list = new ListItem(mode));
+          list.add(parseNumber(version, i, digitsEnd));
+          i = digitsEnd;
+          continue;
+        }
+      }
+
+      list.add(StringItem.newStringItem(lowerCase(version, start, i), false, mode));
+    }
+
+    // 2.0 => 2.0.0
+    fillMissingMajorMinorPatch(items);
+
+    // 2.0.0.0 => 2.0.0
+    removeExtraTrailingZeros(items);
+
+    return items;
+  }
+
+  // Make sure we always start with 3 LongItems
+  private static void fillMissingMajorMinorPatch(ListItem items) {
+    for (int i = 3 - items.size(); i > 0; i--) {
+      items.add(LongItem.ZERO);
+    }
+  }
+
+  private static boolean removeExtraTrailingZeros(ListItem items) {
+    while (items.size() > 3) {
+      var lastItem = items.get(items.size() - 1);
+      if (lastItem.isNull()) {
+        items.remove(items.size() - 1);
+        continue;
+      } else if (Item.Type.LIST.equals(lastItem.getType())) {
+        var listItem = (ListItem) lastItem;
+        if (removeExtraTrailingZeros(listItem)) {
+          continue;
+        }
+      }
+      break;
+    }
+
+    return items.isEmpty();
+  }
+
+  /**
+   * Parses the digits in {@code [start, end)} without building an intermediate string, unless the
+   * number needs a {@link BigIntegerItem}. Small numbers are {@link LongItem#valueOf(long) shared}.
+   */
+  static Item parseNumber(CharSequence buf, int start, int end) {
+    int significant = start;
+    while (significant < end && buf.charAt(significant) == '0') {
+      significant++;
+    }
+    if (significant == end) {
+      // only zeroes, which are kept as they are
+      significant = start;
+    }
+
+    if (end - significant <= MAX_LONGITEM_LENGTH) {
+      // lower than 2^63
+      long value = 0;
+      for (int i = significant; i < end; i++) {
+        value = value * 10 + Character.digit(buf.charAt(i), 10);
+      }
+      return LongItem.valueOf(value);
+    }
+    return new BigIntegerItem(new BigInteger(buf.subSequence(significant, end).toString()));
+  }
+
+  private static int skipAsciiDigits(CharSequence buf, int from, int end) {
+    int i = from;
+    while (i < end && isAsciiDigit(buf.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  /** Lower cases the ASCII characters in {@code [start, end)}, copying only when needed. */
+  private static String lowerCase(CharSequence buf, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char c = buf.charAt(i);
+      if (c < 0x80 && ASCII_LOWER_CASE[c] != c) {
+        char[] chars = new char[end - start];
+        for (int j = start; j < end; j++) {
+          char d = buf.charAt(j);
+          chars[j - start] = d < 0x80 ? ASCII_LOWER_CASE[d] : d;
+        }
+        return new String(chars);
+      }
+    }
+    return buf.subSequence(start, end).toString();
+  }
+
+  private static boolean isDigit(char c, boolean asciiOnly) {
+    return c < 0x80 ? ASCII_TYPES[c] == DIGIT : !asciiOnly && Character.isDigit(c);
+  }
+
+  private static boolean isAsciiDigit(char c) {
+    return c < 0x80 && ASCII_TYPES[c] == DIGIT;
+  }
+
+  private static boolean isAsciiLetter(char c) {
+    return c < 0x80 && ASCII_TYPES[c] == LETTER;
+  }
+}
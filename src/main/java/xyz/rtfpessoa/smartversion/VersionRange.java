@@ -0,0 +1,75 @@
+package xyz.rtfpessoa.smartversion;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An interval of versions, unbounded on the sides whose bound is {@code null}.
+ *
+ * <p>The bounds are parsed when the range is created, so {@link #contains(SmartVersion)} only
+ * compares versions.
+ */
+public record VersionRange(
+    @Nullable SmartVersion lower,
+    boolean lowerInclusive,
+    @Nullable SmartVersion upper,
+    boolean upperInclusive) {
+
+  /** The range of every version. */
+  public static final VersionRange ALL = new VersionRange(null, false, null, false);
+
+  public VersionRange {
+    if (lower != null && upper != null) {
+      int result = lower.compareTo(upper);
+      if (result > 0) {
+        throw new IllegalArgumentException(
+            "Range defies version ordering: "
+                + format(lower, lowerInclusive, upper, upperInclusive));
+      }
+      if (result == 0 && !(lowerInclusive && upperInclusive)) {
+        throw new IllegalArgumentException(
+            "Range cannot have identical boundaries: "
+                + format(lower, lowerInclusive, upper, upperInclusive));
+      }
+    }
+  }
+
+  /** Returns the range holding only {@code version}. */
+  public static VersionRange exactly(SmartVersion version) {
+    return new VersionRange(version, true, version, true);
+  }
+
+  public boolean contains(SmartVersion version) {
+    if (lower != null) {
+      int result = version.compareTo(lower);
+      if (result < 0 || (result == 0 && !lowerInclusive)) {
+        return false;
+      }
+    }
+    if (upper != null) {
+      int result = version.compareTo(upper);
+      return result < 0 || (result == 0 && upperInclusive);
+    }
+    return true;
+  }
+
+  /** Returns the range in Maven notation, e.g. {@code [1.0,2.0)}. */
+  @Override
+  public String toString() {
+    return format(lower, lowerInclusive, upper, upperInclusive);
+  }
+
+  private static String format(
+      @Nullable SmartVersion lower,
+      boolean lowerInclusive,
+      @Nullable SmartVersion upper,
+      boolean upperInclusive) {
+    if (lower != null && lower == upper && lowerInclusive && upperInclusive) {
+      return "[" + lower + "]";
+    }
+    return (lowerInclusive ? "[" : "(")
+        + (lower == null ? "" : lower)
+        + ","
+        + (upper == null ? "" : upper)
+        + (upperInclusive ? "]" : ")");
+  }
+}
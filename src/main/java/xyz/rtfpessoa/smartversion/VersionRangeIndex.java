@@ -0,0 +1,288 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable index of {@link VersionRange}s that finds the ranges containing a version in {@code
+ * O(log n + k)} comparisons, for {@code n} ranges and {@code k} matches.
+ *
+ * <p>The distinct bounds of the ranges are sorted once, which splits the versions in slots: each
+ * bound and each gap between two bounds. Every range covers a run of slots, and the runs are kept
+ * in a centered interval tree. A lookup binary searches the slot of the version and walks the tree
+ * down to that slot.
+ *
+ * <p>The bounds are kept as {@link SortKey sort keys}, so where {@code compareTo} is not
+ * transitive (see {@link SortKey}) the order is the one of the keys, and a version can match
+ * differently than with {@link VersionRange#contains(SmartVersion)}.
+ *
+ * <p>The ranges are identified by their position in the list the index is built from.
+ */
+public final class VersionRangeIndex {
+
+  private final Item.ComparisonMode mode;
+
+  /** The sort keys of the distinct bounds, in ascending order. */
+  private final byte[][] bounds;
+
+  /** The first and last slot covered by each range, {@code -1} for empty ranges. */
+  private final int[] firstSlot;
+
+  private final int[] lastSlot;
+
+  private final int size;
+
+  /** The tree nodes, in the order they are created: center slot and children, or -1. */
+  private final int[] center;
+
+  private final int[] left;
+
+  private final int[] right;
+
+  /**
+   * The ranges that cover the center of each node, from {@code offset[node]} to {@code
+   * offset[node + 1]}, by ascending first slot and by descending last slot.
+   */
+  private final int[] offset;
+
+  private final int[] byFirstSlot;
+
+  private final int[] byLastSlot;
+
+  private final int root;
+
+  private VersionRangeIndex(Item.ComparisonMode mode, List<VersionRange> ranges) {
+    this.mode = mode;
+    this.size = ranges.size();
+    this.bounds = sortedBounds(ranges);
+    this.firstSlot = new int[size];
+    this.lastSlot = new int[size];
+
+    List<Integer> indexed = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      VersionRange range = ranges.get(i);
+      int first = 0;
+      if (range.lower() != null) {
+        first = slot(range.lower().toSortKey()) + (range.lowerInclusive() ? 0 : 1);
+      }
+      int last = 2 * bounds.length;
+      if (range.upper() != null) {
+        last = slot(range.upper().toSortKey()) - (range.upperInclusive() ? 0 : 1);
+      }
+      if (first <= last) {
+        firstSlot[i] = first;
+        lastSlot[i] = last;
+        indexed.add(i);
+      } else {
+        firstSlot[i] = -1;
+        lastSlot[i] = -1;
+      }
+    }
+
+    // every node holds at least one range, see TreeBuilder
+    int nodes = Math.max(indexed.size(), 1);
+    this.center = new int[nodes];
+    this.left = new int[nodes];
+    this.right = new int[nodes];
+    this.offset = new int[nodes + 1];
+    this.byFirstSlot = new int[indexed.size()];
+    this.byLastSlot = new int[indexed.size()];
+    this.root = new TreeBuilder().build(indexed.stream().mapToInt(Integer::intValue).toArray());
+  }
+
+  /**
+   * Builds the index of the ranges, whose bounds must all be parsed in {@code mode}.
+   *
+   * @throws IllegalArgumentException if a bound is not parsed in {@code mode}
+   */
+  public static VersionRangeIndex build(List<VersionRange> ranges, Item.ComparisonMode mode) {
+    for (VersionRange range : ranges) {
+      checkMode(range.lower(), mode);
+      checkMode(range.upper(), mode);
+    }
+    IndexBuildEvent event = FlightRecorderEvents.beginIndexBuild();
+    VersionRangeIndex index = new VersionRangeIndex(mode, List.copyOf(ranges));
+    FlightRecorderEvents.commitIndexBuild(
+        event, VersionRangeIndex.class, mode, ranges.size(), index.bounds.length);
+    return index;
+  }
+
+  private static void checkMode(SmartVersion bound, Item.ComparisonMode mode) {
+    if (bound != null && !mode.equals(bound.getMode())) {
+      throw new IllegalArgumentException("Cannot compare versions from different modes");
+    }
+  }
+
+  private static byte[][] sortedBounds(List<VersionRange> ranges) {
+    List<byte[]> all = new ArrayList<>();
+    for (VersionRange range : ranges) {
+      if (range.lower() != null) {
+        all.add(range.lower().toSortKey());
+      }
+      if (range.upper() != null) {
+        all.add(range.upper().toSortKey());
+      }
+    }
+    byte[][] sorted = all.toArray(new byte[0][]);
+    Arrays.sort(sorted, SortKey::compare);
+    int distinct = 0;
+    for (byte[] bound : sorted) {
+      if (distinct == 0 || SortKey.compare(sorted[distinct - 1], bound) != 0) {
+        sorted[distinct++] = bound;
+      }
+    }
+    return Arrays.copyOf(sorted, distinct);
+  }
+
+  /**
+   * Returns the slot of the sort key of a version: {@code 2 * i + 1} when it is equal to the bound
+   * {@code i}, otherwise {@code 2 * i} when it is between the bounds {@code i - 1} and {@code i}.
+   */
+  private int slot(byte[] key) {
+    int low = 0;
+    int high = bounds.length - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int result = SortKey.compare(key, bounds[middle]);
+      if (result > 0) {
+        low = middle + 1;
+      } else if (result < 0) {
+        high = middle - 1;
+      } else {
+        return 2 * middle + 1;
+      }
+    }
+    return 2 * low;
+  }
+
+  /**
+   * Returns the positions of the ranges that contain the version, in no particular order.
+   *
+   * @throws IllegalArgumentException if the version is not parsed in the mode of the index
+   */
+  public int[] matching(SmartVersion version) {
+    Matches matches = new Matches();
+    forEachMatching(version, matches);
+    return Arrays.copyOf(matches.ranges, matches.count);
+  }
+
+  /**
+   * Passes the positions of the ranges that contain the version to {@code action}, in no
+   * particular order.
+   *
+   * @throws IllegalArgumentException if the version is not parsed in the mode of the index
+   */
+  public void forEachMatching(SmartVersion version, IntConsumer action) {
+    checkMode(version, mode);
+    int slot = slot(version.toSortKey());
+    int node = root;
+    while (node >= 0) {
+      int from = offset[node];
+      int to = offset[node + 1];
+      if (slot < center[node]) {
+        for (int i = from; i < to && firstSlot[byFirstSlot[i]] <= slot; i++) {
+          action.accept(byFirstSlot[i]);
+        }
+        node = left[node];
+      } else if (slot > center[node]) {
+        for (int i = from; i < to && lastSlot[byLastSlot[i]] >= slot; i++) {
+          action.accept(byLastSlot[i]);
+        }
+        node = right[node];
+      } else {
+        for (int i = from; i < to; i++) {
+          action.accept(byFirstSlot[i]);
+        }
+        return;
+      }
+    }
+  }
+
+  /** Returns the number of ranges in the index. */
+  public int size() {
+    return size;
+  }
+
+  public Item.ComparisonMode getMode() {
+    return mode;
+  }
+
+  private static final class Matches implements IntConsumer {
+
+    private int[] ranges = new int[8];
+
+    private int count;
+
+    @Override
+    public void accept(int range) {
+      if (count == ranges.length) {
+        ranges = Arrays.copyOf(ranges, 2 * count);
+      }
+      ranges[count++] = range;
+    }
+  }
+
+  /** Lays the tree out in the arrays of the index, in pre-order. */
+  private final class TreeBuilder {
+
+    private int nodes;
+
+    private int ranges;
+
+    int build(int[] indexed) {
+      if (indexed.length == 0) {
+        return -1;
+      }
+
+      // the median of the first and last slots is covered by the range it comes from, and at most
+      // half of the other ranges are on each side of it
+      int[] slots = new int[2 * indexed.length];
+      for (int i = 0; i < indexed.length; i++) {
+        slots[2 * i] = firstSlot[indexed[i]];
+        slots[2 * i + 1] = lastSlot[indexed[i]];
+      }
+      Arrays.sort(slots);
+      int median = slots[indexed.length];
+
+      int[] before = new int[indexed.length];
+      int[] after = new int[indexed.length];
+      int[] covering = new int[indexed.length];
+      int beforeCount = 0;
+      int afterCount = 0;
+      int coveringCount = 0;
+      for (int range : indexed) {
+        if (lastSlot[range] < median) {
+          before[beforeCount++] = range;
+        } else if (firstSlot[range] > median) {
+          after[afterCount++] = range;
+        } else {
+          covering[coveringCount++] = range;
+        }
+      }
+
+      int node = nodes++;
+      center[node] = median;
+      offset[node] = ranges;
+      Integer[] order = new Integer[coveringCount];
+      for (int i = 0; i < coveringCount; i++) {
+        order[i] = covering[i];
+      }
+      Arrays.sort(order, (a, b) -> Integer.compare(firstSlot[a], firstSlot[b]));
+      for (int i = 0; i < coveringCount; i++) {
+        byFirstSlot[ranges + i] = order[i];
+      }
+      Arrays.sort(order, (a, b) -> Integer.compare(lastSlot[b], lastSlot[a]));
+      for (int i = 0; i < coveringCount; i++) {
+        byLastSlot[ranges + i] = order[i];
+      }
+      ranges += coveringCount;
+      offset[node + 1] = ranges;
+
+      left[node] = build(Arrays.copyOf(before, beforeCount));
+      right[node] = build(Arrays.copyOf(after, afterCount));
+      return node;
+    }
+  }
+}
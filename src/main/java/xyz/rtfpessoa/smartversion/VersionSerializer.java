@@ -0,0 +1,277 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ *
+ *
+ * <h2>Binary format of parsed versions.</h2>
+ *
+ * <p>A serialized version starts with the format version and a byte holding the comparison mode
+ * and whether the original string follows the items. The items of the root list are then written
+ * in pre-order, each one starting with its type:
+ *
+ * <ul>
+ *   <li>LONG: the value as a variable-length number;
+ *   <li>BIGINTEGER: the length and bytes of its two's complement representation;
+ *   <li>STRING: the qualifier rank, and the length and UTF-8 bytes of the value;
+ *   <li>COMBINATION: its string, without type, and its number item;
+ *   <li>LIST: the number of items, followed by the items.
+ * </ul>
+ *
+ * <p>Lengths and counts are unsigned variable-length numbers, 7 bits per byte with the highest bit
+ * set on every byte but the last. Reading a version does not parse it, checks that the rank of
+ * every qualifier is the one of its value, and shares the common items like the parsers do.
+ * Lengths and counts are not trusted: memory is allocated as the data they announce is read.
+ */
+final class VersionSerializer {
+
+  static final int FORMAT_VERSION = 1;
+
+  private static final int MODE_MASK = 0x03;
+
+  private static final int HAS_ORIGINAL = 0x80;
+
+  private static final int TAG_LONG = 1;
+
+  private static final int TAG_BIGINTEGER = 2;
+
+  private static final int TAG_STRING = 3;
+
+  private static final int TAG_COMBINATION = 4;
+
+  private static final int TAG_LIST = 5;
+
+  /** The most memory allocated for a list or an array before reading the data that fills it. */
+  private static final int MAX_UNREAD_ALLOCATION = 1 << 12;
+
+  private static final Item.ComparisonMode[] MODES = Item.ComparisonMode.values();
+
+  private VersionSerializer() {}
+
+  static byte[] serialize(SmartVersion version, boolean includeOriginal) {
+    Output out = new Output();
+    out.writeByte(FORMAT_VERSION);
+    ListItem items = version.getItems();
+    out.writeByte(items.getMode().ordinal() | (includeOriginal ? HAS_ORIGINAL : 0));
+    writeList(out, items);
+    if (includeOriginal) {
+      out.writeString(version.getOriginal());
+    }
+    return out.toByteArray();
+  }
+
+  private static void writeList(Output out, ListItem list) {
+    out.writeVarLong(list.size());
+    for (Item item : list) {
+      writeItem(out, item);
+    }
+  }
+
+  private static void writeItem(Output out, Item item) {
+    switch (item.getType()) {
+      case LONG:
+        out.writeByte(TAG_LONG);
+        out.writeVarLong(((LongItem) item).value());
+        break;
+      case BIGINTEGER:
+        out.writeByte(TAG_BIGINTEGER);
+        byte[] bytes = ((BigIntegerItem) item).value().toByteArray();
+        out.writeVarLong(bytes.length);
+        out.write(bytes);
+        break;
+      case STRING:
+        out.writeByte(TAG_STRING);
+        writeString(out, (StringItem) item);
+        break;
+      case COMBINATION:
+        CombinationItem combination = (CombinationItem) item;
+        out.writeByte(TAG_COMBINATION);
+        writeString(out, combination.getStringPart());
+        writeItem(out, combination.getDigitPart());
+        break;
+      case LIST:
+        out.writeByte(TAG_LIST);
+        writeList(out, (ListItem) item);
+        break;
+      default:
+        throw new IllegalStateException("invalid item: " + item.getClass());
+    }
+  }
+
+  private static void writeString(Output out, StringItem string) {
+    out.writeByte(string.rank());
+    out.writeString(string.value());
+  }
+
+  static SmartVersion deserialize(DataInput in) throws IOException {
+    return read(in::readUnsignedByte, in::readFully);
+  }
+
+  static SmartVersion deserialize(ByteBuffer buffer) {
+    try {
+      return read(() -> buffer.get() & 0xFF, buffer::get);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static SmartVersion read(Input in, Bytes bytes) throws IOException {
+    Reader reader = new Reader(in, bytes);
+    int format = in.readUnsignedByte();
+    if (format != FORMAT_VERSION) {
+      throw new IllegalArgumentException("Unsupported format version: " + format);
+    }
+    int header = in.readUnsignedByte();
+    if ((header & MODE_MASK) >= MODES.length || (header & ~(MODE_MASK | HAS_ORIGINAL)) != 0) {
+      throw new IllegalArgumentException("Malformed serialized version header: " + header);
+    }
+    ListItem items = reader.readList(MODES[header & MODE_MASK]);
+    String original = (header & HAS_ORIGINAL) != 0 ? reader.readString() : null;
+    return new SmartVersion(original, items);
+  }
+
+  private interface Input {
+    int readUnsignedByte() throws IOException;
+  }
+
+  private interface Bytes {
+    void readFully(byte[] bytes) throws IOException;
+  }
+
+  private static final class Reader {
+
+    private final Input in;
+
+    private final Bytes bytes;
+
+    Reader(Input in, Bytes bytes) {
+      this.in = in;
+      this.bytes = bytes;
+    }
+
+    ListItem readList(Item.ComparisonMode mode) throws IOException {
+      int size = readLength();
+      ListItem list = new ListItem(mode);
+      // every item takes at least a byte, the list grows as they are read
+      list.ensureCapacity(Math.min(size, MAX_UNREAD_ALLOCATION));
+      for (int i = 0; i < size; i++) {
+        list.add(readItem(mode));
+      }
+      return list;
+    }
+
+    private Item readItem(Item.ComparisonMode mode) throws IOException {
+      int tag = in.readUnsignedByte();
+      switch (tag) {
+        case TAG_LONG:
+          return LongItem.valueOf(readVarLong());
+        case TAG_BIGINTEGER:
+          return new BigIntegerItem(new BigInteger(readBytes()));
+        case TAG_STRING:
+          return readStringItem(mode);
+        case TAG_COMBINATION:
+          StringItem string = readStringItem(mode);
+          return CombinationItem.of(string, readItem(mode));
+        case TAG_LIST:
+          return readList(mode);
+        default:
+          throw new IllegalArgumentException("Malformed serialized version, invalid item: " + tag);
+      }
+    }
+
+    private StringItem readStringItem(Item.ComparisonMode mode) throws IOException {
+      int rank = in.readUnsignedByte();
+      String value = readString();
+      if (rank != StringItem.qualifierRank(value, mode)) {
+        throw new IllegalArgumentException(
+            "Malformed serialized version, invalid rank " + rank + " of '" + value + "'");
+      }
+      return StringItem.valueOf(value, mode, rank);
+    }
+
+    String readString() throws IOException {
+      return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    /** Reads a length and as many bytes, in chunks so a bad length fails before using memory. */
+    private byte[] readBytes() throws IOException {
+      int length = readLength();
+      byte[] result = new byte[Math.min(length, MAX_UNREAD_ALLOCATION)];
+      bytes.readFully(result);
+      while (result.length < length) {
+        int read = result.length;
+        result = Arrays.copyOf(result, (int) Math.min(length, 2L * read));
+        byte[] chunk = new byte[result.length - read];
+        bytes.readFully(chunk);
+        System.arraycopy(chunk, 0, result, read, chunk.length);
+      }
+      return result;
+    }
+
+    private int readLength() throws IOException {
+      long length = readVarLong();
+      if (length < 0 || length > Integer.MAX_VALUE - 8) {
+        throw new IllegalArgumentException("Malformed serialized version, invalid length");
+      }
+      return (int) length;
+    }
+
+    private long readVarLong() throws IOException {
+      long value = 0;
+      for (int shift = 0; shift < Long.SIZE; shift += 7) {
+        int b = in.readUnsignedByte();
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Malformed serialized version, number too long");
+    }
+  }
+
+  private static final class Output {
+
+    private byte[] bytes = new byte[32];
+
+    private int size;
+
+    void writeByte(int b) {
+      if (size == bytes.length) {
+        bytes = Arrays.copyOf(bytes, 2 * size);
+      }
+      bytes[size++] = (byte) b;
+    }
+
+    void write(byte[] b) {
+      if (size + b.length > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, size + b.length));
+      }
+      System.arraycopy(b, 0, bytes, size, b.length);
+      size += b.length;
+    }
+
+    void writeVarLong(long value) {
+      while ((value & ~0x7FL) != 0) {
+        writeByte((int) (value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      writeByte((int) value);
+    }
+
+    void writeString(String value) {
+      byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+      writeVarLong(utf8.length);
+      write(utf8);
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(bytes, size);
+    }
+  }
+}
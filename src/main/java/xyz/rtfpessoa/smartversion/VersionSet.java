@@ -0,0 +1,284 @@
+package xyz.rtfpessoa.smartversion;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An immutable, sorted set of versions parsed in the same mode.
+ *
+ * <p>The set keeps the original strings and the {@link SortKey sort keys} of its versions in flat
+ * arrays, instead of their item trees: navigation queries binary search the keys, and the versions
+ * they return are {@link SmartVersion#lazy(String, Item.ComparisonMode) lazy}, parsed again only
+ * when they are first compared. Versions that compare as equal are kept once, the first one wins.
+ * Where {@code compareTo} is not transitive (see {@link SortKey}) the order is the one of the keys.
+ */
+public final class VersionSet implements Iterable<SmartVersion> {
+
+  private final Item.ComparisonMode mode;
+
+  /** The original strings of the versions, in ascending order. */
+  private final String[] originals;
+
+  /** The concatenated sort keys of the versions, in ascending order. */
+  private final byte[] keys;
+
+  /** The offset of the key of each version in {@link #keys}, and the end of the last key. */
+  private final int[] keyOffsets;
+
+  /** The range of versions of this set, other sets can share the arrays. */
+  private final int from;
+
+  private final int to;
+
+  private VersionSet(
+      Item.ComparisonMode mode,
+      String[] originals,
+      byte[] keys,
+      int[] keyOffsets,
+      int from,
+      int to) {
+    this.mode = mode;
+    this.originals = originals;
+    this.keys = keys;
+    this.keyOffsets = keyOffsets;
+    this.from = from;
+    this.to = to;
+  }
+
+  /**
+   * Returns the set of the versions, which must be parsed in {@code mode}.
+   *
+   * @throws IllegalArgumentException if a version is not parsed in {@code mode}
+   */
+  public static VersionSet copyOf(Collection<SmartVersion> versions, Item.ComparisonMode mode) {
+    SmartVersion[] array = versions.toArray(new SmartVersion[0]);
+    byte[][] sortKeys = new byte[array.length][];
+    String[] strings = new String[array.length];
+    for (int i = 0; i < array.length; i++) {
+      checkMode(array[i], mode);
+      sortKeys[i] = array[i].toSortKey();
+      strings[i] = array[i].getOriginal();
+    }
+    return build(mode, strings, sortKeys);
+  }
+
+  /** Returns the set of the versions the strings parse to in {@code mode}. */
+  public static VersionSet parse(Collection<String> versions, Item.ComparisonMode mode) {
+    String[] strings = versions.toArray(new String[0]);
+    byte[][] sortKeys = new byte[strings.length][];
+    for (int i = 0; i < strings.length; i++) {
+      sortKeys[i] = new SmartVersion(strings[i], mode).toSortKey();
+    }
+    return build(mode, strings, sortKeys);
+  }
+
+  private static VersionSet build(Item.ComparisonMode mode, String[] strings, byte[][] sortKeys) {
+    IndexBuildEvent event = FlightRecorderEvents.beginIndexBuild();
+    Integer[] order = new Integer[strings.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    // stable, so the first of equal versions stays first
+    Arrays.sort(order, (a, b) -> SortKey.compare(sortKeys[a], sortKeys[b]));
+
+    String[] originals = new String[order.length];
+    byte[][] distinctKeys = new byte[order.length][];
+    int[] keyOffsets = new int[order.length + 1];
+    int size = 0;
+    for (int i = 0; i < order.length; i++) {
+      byte[] key = sortKeys[order[i]];
+      if (size > 0 && SortKey.compare(distinctKeys[size - 1], key) == 0) {
+        continue;
+      }
+      originals[size] = strings[order[i]];
+      distinctKeys[size] = key;
+      keyOffsets[size + 1] = keyOffsets[size] + key.length;
+      size++;
+    }
+
+    byte[] keys = new byte[keyOffsets[size]];
+    for (int i = 0; i < size; i++) {
+      System.arraycopy(distinctKeys[i], 0, keys, keyOffsets[i], distinctKeys[i].length);
+    }
+    originals = Arrays.copyOf(originals, size);
+    keyOffsets = Arrays.copyOf(keyOffsets, size + 1);
+    FlightRecorderEvents.commitIndexBuild(event, VersionSet.class, mode, strings.length, size);
+    return new VersionSet(mode, originals, keys, keyOffsets, 0, size);
+  }
+
+  private static void checkMode(SmartVersion version, Item.ComparisonMode mode) {
+    if (!mode.equals(version.getMode())) {
+      throw new IllegalArgumentException("Cannot compare versions from different modes");
+    }
+  }
+
+  public int size() {
+    return to - from;
+  }
+
+  public boolean isEmpty() {
+    return from == to;
+  }
+
+  public Item.ComparisonMode getMode() {
+    return mode;
+  }
+
+  /** Returns the version at {@code index} in ascending order. */
+  public SmartVersion get(int index) {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + size());
+    }
+    return version(from + index);
+  }
+
+  private SmartVersion version(int position) {
+    return SmartVersion.lazy(originals[position], mode);
+  }
+
+  private @Nullable SmartVersion versionOrNull(int position) {
+    return position >= from && position < to ? version(position) : null;
+  }
+
+  public boolean contains(SmartVersion version) {
+    byte[] key = keyOf(version);
+    int position = lowerBound(key);
+    return position < to && compareAt(position, key) == 0;
+  }
+
+  /** Returns the lowest version, or {@code null} if the set is empty. */
+  public @Nullable SmartVersion first() {
+    return versionOrNull(from);
+  }
+
+  /** Returns the highest version, or {@code null} if the set is empty. */
+  public @Nullable SmartVersion last() {
+    return versionOrNull(to - 1);
+  }
+
+  /** Returns the highest version lower than or equal to {@code version}, or {@code null}. */
+  public @Nullable SmartVersion floor(SmartVersion version) {
+    return versionOrNull(upperBound(keyOf(version)) - 1);
+  }
+
+  /** Returns the lowest version higher than or equal to {@code version}, or {@code null}. */
+  public @Nullable SmartVersion ceiling(SmartVersion version) {
+    return versionOrNull(lowerBound(keyOf(version)));
+  }
+
+  /** Returns the highest version strictly lower than {@code version}, or {@code null}. */
+  public @Nullable SmartVersion lower(SmartVersion version) {
+    return versionOrNull(lowerBound(keyOf(version)) - 1);
+  }
+
+  /** Returns the lowest version strictly higher than {@code version}, or {@code null}. */
+  public @Nullable SmartVersion higher(SmartVersion version) {
+    return versionOrNull(upperBound(keyOf(version)));
+  }
+
+  /**
+   * Returns the versions between {@code fromVersion} and {@code toVersion}, which share the
+   * storage of this set.
+   *
+   * @throws IllegalArgumentException if {@code fromVersion} is higher than {@code toVersion}
+   */
+  public VersionSet subSet(
+      SmartVersion fromVersion,
+      boolean fromInclusive,
+      SmartVersion toVersion,
+      boolean toInclusive) {
+    byte[] fromKey = keyOf(fromVersion);
+    byte[] toKey = keyOf(toVersion);
+    if (SortKey.compare(fromKey, toKey) > 0) {
+      throw new IllegalArgumentException("fromVersion > toVersion");
+    }
+    int start = fromInclusive ? lowerBound(fromKey) : upperBound(fromKey);
+    int end = toInclusive ? upperBound(toKey) : lowerBound(toKey);
+    return new VersionSet(mode, originals, keys, keyOffsets, start, Math.max(start, end));
+  }
+
+  /**
+   * Returns the highest version that matches {@code predicate}, e.g. {@code
+   * latest(version -> !version.isPreRelease())}, or {@code null}.
+   */
+  public @Nullable SmartVersion latest(Predicate<SmartVersion> predicate) {
+    for (int position = to - 1; position >= from; position--) {
+      SmartVersion version = version(position);
+      if (predicate.test(version)) {
+        return version;
+      }
+    }
+    return null;
+  }
+
+  private byte[] keyOf(SmartVersion version) {
+    checkMode(version, mode);
+    return version.toSortKey();
+  }
+
+  /** Returns the first position whose version is not lower than the key. */
+  private int lowerBound(byte[] key) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (compareAt(middle, key) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /** Returns the first position whose version is higher than the key. */
+  private int upperBound(byte[] key) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (compareAt(middle, key) <= 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private int compareAt(int position, byte[] key) {
+    return Arrays.compareUnsigned(
+        keys, keyOffsets[position], keyOffsets[position + 1], key, 0, key.length);
+  }
+
+  /** Iterates over the versions in ascending order. */
+  @Override
+  public Iterator<SmartVersion> iterator() {
+    return new Iterator<>() {
+      private int position = from;
+
+      @Override
+      public boolean hasNext() {
+        return position < to;
+      }
+
+      @Override
+      public SmartVersion next() {
+        if (position >= to) {
+          throw new NoSuchElementException();
+        }
+        return version(position++);
+      }
+    };
+  }
+
+  /** Returns the original strings of the versions, e.g. {@code [1.0, 1.1, 2.0]}. */
+  @Override
+  public String toString() {
+    return Arrays.toString(Arrays.copyOfRange(originals, from, to));
+  }
+}
@@ -0,0 +1,110 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+class ExternalSorterTest {
+
+  private static List<String> randomVersions(int count) {
+    Random random = new Random(11);
+    String[] qualifiers = {"", "-alpha", "-rc1", "-SNAPSHOT", "-sp", ".0", "-ga"};
+    List<String> versions = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      versions.add(
+          random.nextInt(5)
+              + "."
+              + random.nextInt(30)
+              + qualifiers[random.nextInt(qualifiers.length)]);
+    }
+    return versions;
+  }
+
+  private static List<String> lines(StringWriter out) {
+    return Arrays.asList(out.toString().split("\n"));
+  }
+
+  @Test
+  void testSpillsAndMergesRuns() throws IOException {
+    Path directory = Files.createTempDirectory("external-sorter");
+    try {
+      List<String> versions = randomVersions(5000);
+      StringWriter out = new StringWriter();
+      try (ExternalSorter sorter = new ExternalSorter(ComparisonMode.MAVEN, 16 << 10, directory)) {
+        for (String version : versions) {
+          sorter.add(version);
+        }
+        assertTrue(sorter.runCount() > 10, "expected runs, got " + sorter.runCount());
+        sorter.writeTo(out);
+      }
+
+      assertEquals(SmartVersions.sortStrings(versions, ComparisonMode.MAVEN), lines(out));
+      try (Stream<Path> files = Files.list(directory)) {
+        assertEquals(0, files.count());
+      }
+    } finally {
+      Files.delete(directory);
+    }
+  }
+
+  @Test
+  void testFailToMergeTruncatedRun() throws IOException {
+    Path directory = Files.createTempDirectory("external-sorter");
+    try {
+      try (ExternalSorter sorter = new ExternalSorter(ComparisonMode.MAVEN, 16 << 10, directory)) {
+        for (String version : randomVersions(1000)) {
+          sorter.add(version);
+        }
+        // a length prefix cut after 2 of its 4 bytes
+        try (Stream<Path> files = Files.list(directory)) {
+          Path run = files.findFirst().orElseThrow();
+          Files.write(run, new byte[2], StandardOpenOption.APPEND);
+        }
+
+        assertThrows(EOFException.class, () -> sorter.writeTo(new StringWriter()));
+      }
+      try (Stream<Path> files = Files.list(directory)) {
+        assertEquals(0, files.count());
+      }
+    } finally {
+      Files.delete(directory);
+    }
+  }
+
+  @Test
+  void testSortsInMemory() throws IOException {
+    List<String> versions = randomVersions(100);
+    StringWriter out = new StringWriter();
+    try (ExternalSorter sorter = new ExternalSorter(ComparisonMode.SEMVER)) {
+      for (String version : versions) {
+        sorter.add(version);
+      }
+      sorter.writeTo(out);
+
+      assertEquals(0, sorter.runCount());
+    }
+
+    assertEquals(SmartVersions.sortStrings(versions, ComparisonMode.SEMVER), lines(out));
+  }
+
+  @Test
+  void testFailToCreateWithoutMemory() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new ExternalSorter(ComparisonMode.MAVEN, 0, Path.of(".")));
+  }
+}
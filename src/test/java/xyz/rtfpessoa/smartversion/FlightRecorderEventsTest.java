@@ -0,0 +1,76 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+class FlightRecorderEventsTest {
+
+  private static final String PREFIX = "xyz.rtfpessoa.smartversion.";
+
+  @Test
+  void testEventsAreRecordedWhenEnabled() throws Exception {
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      for (String event : List.of("Parse", "Compare", "CacheMiss", "IndexBuild")) {
+        recording.enable(PREFIX + event).withThreshold(Duration.ZERO);
+      }
+      recording.start();
+
+      SmartVersion big = new SmartVersion("1.2.3-12345678901234567890", ComparisonMode.SEMVER);
+      new SmartVersion("1.2.3-12345678901234567891", ComparisonMode.SEMVER).compareTo(big);
+      new VersionCache(1).get("1.0-rc1", ComparisonMode.MAVEN);
+      VersionSet.parse(List.of("1", "2", "1.0"), ComparisonMode.MAVEN);
+
+      recording.stop();
+      Path file = Files.createTempFile("smart-version", ".jfr");
+      try {
+        recording.dump(file);
+        events = RecordingFile.readAllEvents(file);
+      } finally {
+        Files.delete(file);
+      }
+    }
+
+    List<RecordedEvent> parses = named(events, "Parse");
+    RecordedEvent parse = parses.get(0);
+    assertEquals("SEMVER", parse.getString("mode"));
+    assertEquals(26, parse.getInt("inputLength"));
+    assertEquals(5, parse.getInt("itemCount"));
+    assertTrue(parse.getBoolean("bigInteger"));
+    assertFalse(
+        parses.stream().anyMatch(e -> e.getInt("inputLength") == 1 && e.getBoolean("bigInteger")));
+
+    RecordedEvent compare = named(events, "Compare").get(0);
+    assertEquals("1.2.3-12345678901234567891", compare.getString("version"));
+    assertEquals("1.2.3-12345678901234567890", compare.getString("otherVersion"));
+    assertEquals(1, compare.getInt("result"));
+
+    RecordedEvent miss = named(events, "CacheMiss").get(0);
+    assertEquals("1.0-rc1", miss.getString("version"));
+    assertFalse(miss.getBoolean("eviction"));
+    assertEquals(1, miss.getInt("cacheSize"));
+
+    RecordedEvent build = named(events, "IndexBuild").get(0);
+    assertEquals("VersionSet", build.getString("index"));
+    assertEquals(3, build.getInt("inputSize"));
+    assertEquals(2, build.getInt("size"));
+  }
+
+  private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+    return events.stream()
+        .filter(e -> e.getEventType().getName().equals(PREFIX + name))
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,110 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+class LockstepComparatorTest {
+
+  private static final String[] VERSIONS = {
+    "",
+    "0",
+    "1",
+    "1.",
+    "1..2",
+    ".1",
+    "1.0",
+    "1.0.0",
+    "1.0.0.0.0",
+    "1.2",
+    "1.2.3",
+    "1.10.0",
+    "1.2.3.4",
+    "1.2.3.0.1",
+    "1.2.3-rc.1",
+    "1.2.4-SNAPSHOT",
+    "1.0-alpha",
+    "1.0.alpha",
+    "1.0-1",
+    "1.0.0-0",
+    "1.0rc1",
+    "1.5_2",
+    "1.2+build.5",
+    "1.2.3+build",
+    "01.002.3",
+    "12345678901234567890.1",
+    "12345678901234567891",
+    "0000000000000000000000.1",
+    "1.0000000000000000000000",
+    "1.2\u0663",
+    "v1.2.3"
+  };
+
+  private static final String ALPHABET = "0012345789...--+_aArRcC\u00e9\u0663";
+
+  @Test
+  void testDecidedComparisonsMatchItems() {
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      for (String a : VERSIONS) {
+        for (String b : VERSIONS) {
+          assertCompareMatchesItems(a, b, mode);
+        }
+      }
+    }
+  }
+
+  @Test
+  void testRandomComparisonsMatchItems() {
+    Random random = new Random(42);
+    for (int n = 0; n < 20_000; n++) {
+      String a = randomVersion(random);
+      String b = random.nextInt(4) == 0 ? a + randomVersion(random) : randomVersion(random);
+      for (ComparisonMode mode : ComparisonMode.values()) {
+        assertCompareMatchesItems(a, b, mode);
+      }
+    }
+  }
+
+  @Test
+  void testNumericComparisonsAreDecided() {
+    String[][] pairs = {
+      {"1.2.3", "1.2.4"},
+      {"1.2.3", "1.10.0"},
+      {"1.2", "1.2.0.0"},
+      {"2", "1.9.9"},
+      {"1.2.3", "1.2.4-rc.1"},
+      {"1.3-SNAPSHOT", "1.2.9"}
+    };
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      for (String[] pair : pairs) {
+        int expected =
+            new SmartVersion(pair[0], mode).compareTo(new SmartVersion(pair[1], mode));
+        assertEquals(
+            expected,
+            LockstepComparator.compare(pair[0], pair[1], mode),
+            pair[0] + " and " + pair[1] + " in " + mode);
+      }
+    }
+  }
+
+  private static void assertCompareMatchesItems(String a, String b, ComparisonMode mode) {
+    int expected = new SmartVersion(a, mode).compareTo(new SmartVersion(b, mode));
+    String message = a + " compared to " + b + " in " + mode + " mode";
+    int result = LockstepComparator.compare(a, b, mode);
+    if (result != LockstepComparator.UNDECIDED) {
+      assertEquals(expected, result, message);
+    }
+    assertEquals(expected, SmartVersion.compare(a, b, mode), message);
+  }
+
+  private static String randomVersion(Random random) {
+    int length = random.nextInt(10);
+    StringBuilder version = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      version.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+    }
+    return version.toString();
+  }
+}
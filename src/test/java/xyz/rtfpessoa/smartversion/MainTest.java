@@ -0,0 +1,104 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+class MainTest {
+
+  private static final String INPUT = "1.1\n2.0-rc1\n\n1.0\n1.0.0\n  2.0\n1.1-SNAPSHOT\n";
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+  private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+  private int run(String input, String... args) throws IOException {
+    return Main.run(
+        args,
+        Channels.newChannel(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8))),
+        Channels.newChannel(out),
+        new PrintStream(err, true, StandardCharsets.UTF_8));
+  }
+
+  private String output() {
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void testSort() throws IOException {
+    assertEquals(0, run(INPUT, "sort"));
+    assertEquals("1.0\n1.0.0\n1.1-SNAPSHOT\n1.1\n2.0-rc1\n2.0\n", output());
+  }
+
+  @Test
+  void testMaxAndMin() throws IOException {
+    assertEquals(0, run(INPUT, "max"));
+    assertEquals(0, run(INPUT, "--mode", "semver", "min"));
+    assertEquals("2.0\n1.0\n", output());
+  }
+
+  @Test
+  void testDedupe() throws IOException {
+    assertEquals(0, run(INPUT + "1-ga\n2.0\n", "dedupe"));
+    assertEquals("1.1\n2.0-rc1\n1.0\n2.0\n1.1-SNAPSHOT\n", output());
+  }
+
+  @Test
+  void testFilter() throws IOException {
+    assertEquals(0, run(INPUT, "filter", "[1.0,2.0)"));
+    assertEquals("1.1\n2.0-rc1\n1.0\n1.0.0\n1.1-SNAPSHOT\n", output());
+  }
+
+  @Test
+  void testCheck() throws IOException {
+    assertEquals(0, run("1.0\n1.0.0\n1.1\n", "check"));
+    assertEquals(1, run(INPUT, "check"));
+    assertTrue(err.toString(StandardCharsets.UTF_8).contains("disorder: 1.0"));
+  }
+
+  @Test
+  void testSortedOutputIsChecked() throws IOException {
+    // compareTo is not transitive for these versions, the commands use the order of the sort keys
+    String input = "v1.2.3\n0.0-GA\n0.0.0rc0.dev1\n1-redhat-00001\n1-0.alpha\n1\n";
+    assertEquals(0, run(input, "sort"));
+    String sorted = output();
+    out.reset();
+    assertEquals(0, run(sorted, "check"), err.toString(StandardCharsets.UTF_8));
+    assertEquals(0, run(input, "min"));
+    assertEquals(sorted.substring(0, sorted.indexOf('\n') + 1), output());
+    out.reset();
+    assertEquals(0, run(input, "max"));
+    assertEquals(sorted.substring(sorted.lastIndexOf('\n', sorted.length() - 2) + 1), output());
+  }
+
+  @Test
+  void testReadFiles() throws IOException {
+    Path file = Files.createTempFile("versions", ".txt");
+    try {
+      Files.writeString(file, "3.0\n1.0\n");
+      assertEquals(0, run("2.0\n", "sort", file.toString(), "-"));
+      assertEquals("1.0\n2.0\n3.0\n", output());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void testUsageErrors() throws IOException {
+    assertEquals(2, run(INPUT));
+    assertEquals(2, run(INPUT, "--mode", "foo", "sort"));
+    assertEquals(2, run(INPUT, "shuffle"));
+    assertEquals(2, run(INPUT, "filter"));
+    assertEquals(2, run(INPUT, "filter", "[1.0"));
+    assertEquals(1, run(INPUT, "sort", "does-not-exist.txt"));
+  }
+}
@@ -0,0 +1,85 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+class OffHeapVersionStoreTest {
+
+  private static final List<String> VERSIONS =
+      List.of(
+          "1",
+          "1.0.0",
+          "1.2.3-alpha.1",
+          "1.0-RC2",
+          "1.0.0.RC1-SNAPSHOT",
+          "2.0.0-beta+build.5",
+          "1.0alpha1-sp",
+          "1.2.3.4.5.6.7.8.9.10",
+          "12345678901234567890123.1",
+          "1-some-long-unknown-qualifier",
+          "");
+
+  @Test
+  void testDecodesStoredVersions() {
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      try (OffHeapVersionStore store = new OffHeapVersionStore()) {
+        long[] handles = store.parseAll(VERSIONS, mode);
+
+        assertEquals(VERSIONS.size(), store.size());
+        for (int i = 0; i < handles.length; i++) {
+          SmartVersion version = store.get(handles[i]);
+          assertEquals(VERSIONS.get(i), version.getOriginal());
+          assertEquals(new SmartVersion(VERSIONS.get(i), mode), version);
+        }
+      }
+    }
+  }
+
+  @Test
+  void testComparesHandlesLikeVersions() {
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      // small chunks, so the versions are spread over many of them
+      try (OffHeapVersionStore store = new OffHeapVersionStore(64)) {
+        long[] handles = store.parseAll(VERSIONS, mode);
+
+        assertTrue(store.memoryUsed() > 64);
+        for (int i = 0; i < handles.length; i++) {
+          for (int j = 0; j < handles.length; j++) {
+            SmartVersion a = new SmartVersion(VERSIONS.get(i), mode);
+            SmartVersion b = new SmartVersion(VERSIONS.get(j), mode);
+            assertEquals(
+                Integer.signum(a.compareTo(b)),
+                store.compare(handles[i], handles[j]),
+                a + " compared to " + b + " in " + mode);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void testFailToCompareVersionsFromDifferentModes() {
+    try (OffHeapVersionStore store = new OffHeapVersionStore()) {
+      long maven = store.add(new SmartVersion("1.0.0"));
+      long semver = store.add(new SmartVersion("1.0.0", ComparisonMode.SEMVER));
+
+      assertThrows(IllegalArgumentException.class, () -> store.compare(maven, semver));
+    }
+  }
+
+  @Test
+  void testFailToUseHandlesOfClosedStore() {
+    OffHeapVersionStore store = new OffHeapVersionStore();
+    long handle = store.add(new SmartVersion("1.0.0"));
+    store.close();
+
+    assertThrows(IllegalStateException.class, () -> store.get(handle));
+    assertThrows(IllegalStateException.class, () -> store.add(new SmartVersion("1")));
+    assertThrows(IllegalArgumentException.class, () -> new OffHeapVersionStore(0));
+  }
+}
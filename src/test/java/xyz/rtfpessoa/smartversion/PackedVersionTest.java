@@ -0,0 +1,84 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+class PackedVersionTest {
+
+  private static final String[] VERSIONS = {
+    "1-alpha2snapshot",
+    "1-alpha-123",
+    "1-m11",
+    "1-cr2",
+    "1-SNAPSHOT",
+    "1",
+    "1.0.0",
+    "1-sp123",
+    "1-abc",
+    "1-pom-1",
+    "1-1-snapshot",
+    "1-123",
+    "2.0.1-klm",
+    "2.1b",
+    "11.a11",
+    "1.0.0-beta.2",
+    "1.0.0-beta.foo",
+    "1.0.0.foo",
+    "4.2.0-beta.-2",
+    "1.2.3-a1",
+    "20190126.230843",
+    "12345678901234567890.1H.5-beta",
+    "123456789012345678901234567890123456789",
+    "0000000000000000000000"
+  };
+
+  private static Stream<Arguments> versionPairs() {
+    Stream.Builder<Arguments> pairs = Stream.builder();
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      for (String a : VERSIONS) {
+        for (String b : VERSIONS) {
+          pairs.add(Arguments.of(a, b, mode));
+        }
+      }
+    }
+    return pairs.build();
+  }
+
+  @ParameterizedTest(name = "{0} compared to {1} in {2} mode")
+  @MethodSource("versionPairs")
+  void testCompareMatchesSmartVersion(String a, String b, ComparisonMode mode) {
+    SmartVersion v1 = new SmartVersion(a, mode);
+    SmartVersion v2 = new SmartVersion(b, mode);
+
+    assertEquals(
+        v1.compareTo(v2), PackedVersion.compare(PackedVersion.pack(v1), PackedVersion.pack(v2)));
+  }
+
+  @Test
+  void testCanonicalRoundTrip() {
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      for (String version : VERSIONS) {
+        SmartVersion parsed = new SmartVersion(version, mode);
+        long[] packed = PackedVersion.pack(parsed);
+
+        assertEquals(mode, PackedVersion.mode(packed));
+        assertEquals(parsed.getCanonical(), PackedVersion.toCanonical(packed));
+      }
+    }
+  }
+
+  @Test
+  void testFailToCompareDifferentModes() {
+    long[] maven = PackedVersion.pack(new SmartVersion("1", ComparisonMode.MAVEN));
+    long[] semver = PackedVersion.pack(new SmartVersion("1", ComparisonMode.SEMVER));
+
+    assertThrows(IllegalArgumentException.class, () -> PackedVersion.compare(maven, semver));
+  }
+}
@@ -0,0 +1,98 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+class PrefixKeyTest {
+
+  private static final String[] VERSIONS = {
+    "1",
+    "1.0",
+    "1.0.0",
+    "1.2",
+    "1.2.3",
+    "1.2.3.4",
+    "1.2.3.0.1",
+    "1.2.3.0-beta",
+    "1-alpha",
+    "1-alpha2",
+    "1.0-beta-2",
+    "1-rc",
+    "1-cr2",
+    "1-SNAPSHOT",
+    "1-ga",
+    "1.sp",
+    "1-sp2",
+    "1-abc",
+    "1-1",
+    "1.0-0-alpha",
+    "1.sp.1",
+    "2.0.1-klm",
+    "1.0.0-beta.2",
+    "1.0.0-beta.foo",
+    "1.0.0.foo",
+    "1.0.0-1",
+    "20190126.230843",
+    "12345678901234567890.1",
+    "0000000000000000000000.1",
+    "123456789.2",
+    "1.65536",
+    "a1"
+  };
+
+  private static int compare(SmartVersion v1, SmartVersion v2) {
+    return PrefixKey.compare(PrefixKey.of(v1.getItems()), PrefixKey.of(v2.getItems()));
+  }
+
+  @Test
+  void testDecidedComparisonsMatchItems() {
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      for (String a : VERSIONS) {
+        for (String b : VERSIONS) {
+          SmartVersion v1 = new SmartVersion(a, mode);
+          SmartVersion v2 = new SmartVersion(b, mode);
+          int result = compare(v1, v2);
+          if (result != PrefixKey.UNDECIDED) {
+            assertEquals(
+                v1.getItems().compareTo(v2.getItems()),
+                result,
+                a + " compared to " + b + " in " + mode + " mode");
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void testCommonComparisonsAreDecided() {
+    String[][] pairs = {
+      {"1.2.3", "1.2.4"},
+      {"1.2.3", "1.3"},
+      {"1.2.3", "1.2.3"},
+      {"1.2.3-rc1", "1.2.3"},
+      {"1.2.3-alpha", "1.2.3-beta"},
+      {"1.2.3-SNAPSHOT", "1.2.3-sp"},
+      {"1.2-rc1", "1.2.3"}
+    };
+    for (ComparisonMode mode : new ComparisonMode[] {ComparisonMode.MAVEN, ComparisonMode.MIXED}) {
+      for (String[] pair : pairs) {
+        SmartVersion v1 = new SmartVersion(pair[0], mode);
+        SmartVersion v2 = new SmartVersion(pair[1], mode);
+        assertNotEquals(
+            PrefixKey.UNDECIDED, compare(v1, v2), pair[0] + " and " + pair[1] + " in " + mode);
+      }
+    }
+  }
+
+  @Test
+  void testTiedQualifiersAreNotDecided() {
+    SmartVersion v1 = new SmartVersion("1.0.0-foo", ComparisonMode.SEMVER);
+    SmartVersion v2 = new SmartVersion("1.0.0-bar", ComparisonMode.SEMVER);
+
+    assertEquals(PrefixKey.UNDECIDED, compare(v1, v2));
+    assertEquals("foo".compareTo("bar"), v1.compareTo(v2));
+  }
+}
@@ -0,0 +1,139 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+/** Shares versions across many threads, which must all see the same values. */
+class SmartVersionConcurrencyTest {
+
+  private static final int THREADS = 200;
+
+  private static final String[] QUALIFIERS = {"", "-alpha", "-rc1", "-SNAPSHOT", ".sp", "-foo.2"};
+
+  @Test
+  void testVersionsAreSharedSafelyAcrossThreads() throws Exception {
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      String[] strings = randomVersions(new Random(mode.ordinal()), 500);
+      // half of the versions are only parsed when the threads first use them
+      SmartVersion[] shared = new SmartVersion[strings.length];
+      for (int i = 0; i < strings.length; i++) {
+        shared[i] =
+            i % 2 == 0 ? new SmartVersion(strings[i], mode) : SmartVersion.lazy(strings[i], mode);
+      }
+      Snapshot expected = Snapshot.of(parseAll(strings, mode));
+
+      List<Snapshot> snapshots = runConcurrently(() -> Snapshot.of(shared));
+
+      for (Snapshot snapshot : snapshots) {
+        assertArrayEquals(expected.canonicals, snapshot.canonicals, mode.toString());
+        assertArrayEquals(expected.hashCodes, snapshot.hashCodes, mode.toString());
+        assertArrayEquals(expected.comparisons, snapshot.comparisons, mode.toString());
+        assertArrayEquals(expected.sorted, snapshot.sorted, mode.toString());
+        for (int i = 0; i < shared.length; i++) {
+          // the lazy versions are parsed once
+          assertSame(shared[i].getItems(), snapshot.items[i]);
+        }
+      }
+    }
+  }
+
+  private static <T> List<T> runConcurrently(Callable<T> task) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<T>> futures = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return task.call();
+                }));
+      }
+      start.countDown();
+      List<T> results = new ArrayList<>();
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static SmartVersion[] parseAll(String[] strings, ComparisonMode mode) {
+    SmartVersion[] versions = new SmartVersion[strings.length];
+    for (int i = 0; i < strings.length; i++) {
+      versions[i] = new SmartVersion(strings[i], mode);
+    }
+    return versions;
+  }
+
+  private static String[] randomVersions(Random random, int count) {
+    String[] versions = new String[count];
+    for (int i = 0; i < count; i++) {
+      versions[i] =
+          random.nextInt(3)
+              + "."
+              + random.nextInt(3)
+              + "."
+              + random.nextInt(3)
+              + QUALIFIERS[random.nextInt(QUALIFIERS.length)];
+    }
+    return versions;
+  }
+
+  /** What a thread sees of the versions, in a different order than the other threads. */
+  private static final class Snapshot {
+
+    final String[] canonicals;
+
+    final int[] hashCodes;
+
+    final int[] comparisons;
+
+    final String[] sorted;
+
+    final ListItem[] items;
+
+    private Snapshot(int size) {
+      canonicals = new String[size];
+      hashCodes = new int[size];
+      comparisons = new int[size];
+      sorted = new String[size];
+      items = new ListItem[size];
+    }
+
+    static Snapshot of(SmartVersion[] versions) {
+      int size = versions.length;
+      Snapshot snapshot = new Snapshot(size);
+      int offset = (int) (Thread.currentThread().getId() % size);
+      for (int n = 0; n < size; n++) {
+        int i = (offset + n) % size;
+        SmartVersion version = versions[i];
+        snapshot.comparisons[i] = Integer.signum(version.compareTo(versions[(i + 1) % size]));
+        snapshot.hashCodes[i] = version.hashCode();
+        snapshot.canonicals[i] = version.getCanonical();
+        snapshot.items[i] = version.getItems();
+      }
+      SmartVersion[] copy = versions.clone();
+      Arrays.sort(copy);
+      for (int i = 0; i < size; i++) {
+        snapshot.sorted[i] = copy[i].getCanonical();
+      }
+      return snapshot;
+    }
+  }
+}
@@ -5,9 +5,12 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -362,12 +365,25 @@ class SmartVersionTest {
 
   @Test
   void testReuse() {
-    SmartVersion c1 = new SmartVersion("1");
-    c1.parseVersion("2");
+    SmartVersion c1 = SmartVersion.of("2");
 
     Comparable<?> c2 = newComparable("2");
 
-    assertEquals(c1, c2, "reused instance should be equivalent to new instance");
+    assertEquals(c1, c2, "cached instance should be equivalent to new instance");
+    assertThat(SmartVersion.of("2")).isSameAs(c1);
+  }
+
+  @Test
+  void testItemsCannotBeChanged() {
+    ListItem items = new SmartVersion("1.0-rc-1").getItems();
+    ListItem subList = (ListItem) items.get(1);
+
+    assertThrows(UnsupportedOperationException.class, () -> items.add(LongItem.ZERO));
+    assertThrows(UnsupportedOperationException.class, () -> items.set(0, LongItem.ZERO));
+    assertThrows(UnsupportedOperationException.class, () -> subList.remove(0));
+    assertThrows(UnsupportedOperationException.class, items::clear);
+    assertThrows(UnsupportedOperationException.class, () -> items.subList(0, 1).clear());
+    assertEquals("1-rc1", new SmartVersion("1.0-rc-1").getCanonical());
   }
 
   /**
@@ -408,6 +424,17 @@ class SmartVersionTest {
     assertTrue(v2.compareTo(v3) == "foo".compareTo("bar"), "expected " + v2 + " > " + v3);
   }
 
+  @Test
+  void testListAndStringOrderIsSymmetric() {
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      SmartVersion v1 = new SmartVersion("1.0.0-beta", mode);
+      SmartVersion v2 = new SmartVersion("1.0.0.foo", mode);
+
+      assertEquals(
+          Integer.signum(v1.compareTo(v2)), -Integer.signum(v2.compareTo(v1)), mode + " mode");
+    }
+  }
+
   @Test
   public void testMixedMode() {
     SmartVersion v1 = new SmartVersion("1.0.0.alpha2", ComparisonMode.MIXED);
@@ -563,6 +590,24 @@ class SmartVersionTest {
     assertThat(parsedVersion.equalTo(parsedVersionToCompare)).isEqualTo(result == 0);
   }
 
+  private static Stream<Arguments> semVerCanonicalInput() {
+    return Stream.of(
+        Arguments.of("1.2.3", ComparisonMode.SEMVER, "1.2.3"),
+        Arguments.of("1.0.0.0", ComparisonMode.SEMVER, "1.0.0"),
+        Arguments.of("1-beta", ComparisonMode.SEMVER, "1-beta.0"),
+        Arguments.of("1.0.0-beta.2", ComparisonMode.MIXED, "1.0.0-beta.2"),
+        Arguments.of("4.2.0-beta.-2", ComparisonMode.SEMVER, "4.2.0-beta.2"),
+        Arguments.of("1.2.3-a1", ComparisonMode.SEMVER, "1.2.3-a-1"),
+        Arguments.of("1.2.3-a1", ComparisonMode.MIXED, "1.2.3-alpha-1"),
+        Arguments.of("V1.2.3-RC.1+build.5", ComparisonMode.MIXED, "0.0.0.v-1.2.3-rc.1"));
+  }
+
+  @ParameterizedTest(name = "{0} in {1} mode is {2}")
+  @MethodSource("semVerCanonicalInput")
+  void testSemVerCanonical(String version, ComparisonMode mode, String canonical) {
+    assertEquals(canonical, new SmartVersion(version, mode).getCanonical());
+  }
+
   @Test
   void testNonZeroComparisonWithNull() {
     // 2.0 < 2-1
@@ -615,6 +660,143 @@ class SmartVersionTest {
     assertThat(v3.greaterThan(v2)).isTrue();
   }
 
+  @Test
+  void testQualifierRanksMatchComparableQualifier() {
+    String[] qualifiers = {
+      "alpha", "beta", "milestone", "rc", "cr", "snapshot", "", "ga", "final", "release", "sp",
+      "abc", "klm", "pom", "zzz"
+    };
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      for (String q1 : qualifiers) {
+        StringItem s1 = StringItem.newStringItem(q1, false, mode);
+        for (String q2 : qualifiers) {
+          StringItem s2 = StringItem.newStringItem(q2, false, mode);
+          assertEquals(
+              s1.comparableQualifier(s1.value()).compareTo(s2.comparableQualifier(s2.value())),
+              s1.compareTo(s2),
+              q1 + " compared to " + q2 + " in " + mode + " mode");
+        }
+      }
+    }
+  }
+
+  @Test
+  void testFailToCreateStringItemWithWrongRank() {
+    assertEquals(3, new StringItem("rc", ComparisonMode.MAVEN, 3).rank());
+    assertThrows(
+        IllegalArgumentException.class, () -> new StringItem("rc", ComparisonMode.MAVEN, 0));
+    assertThrows(
+        IllegalArgumentException.class, () -> new StringItem("rc", ComparisonMode.SEMVER, 3));
+  }
+
+  @Test
+  void testEqualVersionsHaveEqualHashCodes() {
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      assertEqualWithEqualHashCodes(mode, "1.0.0-beta.0", "1.0.0-beta", "1.0.0-BETA.0");
+      assertEqualWithEqualHashCodes(mode, "1.0.0", "1", "1.0");
+    }
+    // cr is an alias of rc outside SEMVER mode
+    assertEqualWithEqualHashCodes(ComparisonMode.MAVEN, "1.0.0-cr.1", "1.0.0-rc.1", "1-RC.1");
+    assertEqualWithEqualHashCodes(ComparisonMode.MIXED, "1.0.0-cr.1", "1.0.0-rc.1");
+    // the build metadata is ignored outside MAVEN mode
+    assertEqualWithEqualHashCodes(ComparisonMode.SEMVER, "1.0.0", "1.0.0+build.5");
+    assertEqualWithEqualHashCodes(ComparisonMode.MIXED, "1.0.0", "1.0.0+build.5");
+  }
+
+  private static void assertEqualWithEqualHashCodes(ComparisonMode mode, String... group) {
+    SmartVersion first = new SmartVersion(group[0], mode);
+    Set<SmartVersion> versions = new HashSet<>();
+    for (String version : group) {
+      SmartVersion v = new SmartVersion(version, mode);
+      String message = version + " and " + group[0] + " in " + mode + " mode";
+      assertEquals(first, v, message);
+      assertEquals(first.hashCode(), v.hashCode(), message);
+      versions.add(v);
+    }
+    assertEquals(1, versions.size(), Arrays.toString(group) + " in " + mode + " mode");
+  }
+
+  @Test
+  void testVersionsFromDifferentModesAreNotEqual() {
+    var v1 = new SmartVersion("1.0.0", ComparisonMode.MAVEN);
+    var v2 = new SmartVersion("1.0.0", ComparisonMode.SEMVER);
+    assertThat(v1.equals(v2)).isFalse();
+    assertThat(Set.of(v1, v2)).hasSize(2);
+  }
+
+  @Test
+  void testPreRelease() {
+    assertThat(new SmartVersion("1.0-SNAPSHOT").isPreRelease()).isTrue();
+    assertThat(new SmartVersion("1.0-rc-1").isPreRelease()).isTrue();
+    assertThat(new SmartVersion("1.0-1-alpha").isPreRelease()).isTrue();
+    assertThat(new SmartVersion("1.0-sp1").isPreRelease()).isFalse();
+    assertThat(new SmartVersion("1.0-foo").isPreRelease()).isFalse();
+    assertThat(new SmartVersion("1.0-1").isPreRelease()).isFalse();
+    assertThat(new SmartVersion("1.0.0-1", ComparisonMode.SEMVER).isPreRelease()).isTrue();
+    assertThat(new SmartVersion("1.0.0-sp", ComparisonMode.MIXED).isPreRelease()).isTrue();
+    assertThat(new SmartVersion("1.0.0+build.1", ComparisonMode.SEMVER).isPreRelease()).isFalse();
+  }
+
+  @Test
+  void testLazyVersionsBehaveLikeParsedVersions() {
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      var eager = new SmartVersion("1.0.0-RC.1", mode);
+      var lazy = SmartVersion.lazy("1.0.0-RC.1", mode);
+      assertThat(lazy.toString()).isEqualTo("1.0.0-RC.1");
+      assertThat(lazy.compareTo(eager)).isZero();
+      assertThat(lazy.hashCode()).isEqualTo(eager.hashCode());
+      assertThat(lazy.getCanonical()).isEqualTo(eager.getCanonical());
+      assertThat(lazy.isPreRelease()).isEqualTo(eager.isPreRelease());
+      assertThat(SmartVersion.lazy("2", mode).greaterThan(eager)).isTrue();
+    }
+    assertThat(SmartVersion.lazy("1.0-ga")).isEqualTo(new SmartVersion("1"));
+    assertThrows(NullPointerException.class, () -> SmartVersion.lazy(null));
+  }
+
+  @Test
+  void testLazyVersionsAreParsedOnceAcrossThreads() throws Exception {
+    var lazy = SmartVersion.lazy("1.2.3-beta-4");
+    var eager = new SmartVersion("1.2.3-beta-4");
+    var threads = new Thread[8];
+    var items = new ListItem[threads.length];
+    var canonicals = new String[threads.length];
+    for (int i = 0; i < threads.length; i++) {
+      int index = i;
+      threads[i] =
+          new Thread(
+              () -> {
+                items[index] = lazy.getItems();
+                canonicals[index] = lazy.getCanonical();
+              });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    for (int i = 0; i < threads.length; i++) {
+      // the items are published once, the canonical form is a cache that racing threads can build
+      // more than once
+      assertThat(items[i]).isSameAs(items[0]);
+      assertThat(canonicals[i]).isEqualTo(eager.getCanonical());
+    }
+  }
+
+  @Test
+  void testCommonItemsAreShared() {
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      ListItem v1 = new SmartVersion("1.2.3-rc1.beta", mode).getItems();
+      ListItem v2 = new SmartVersion("1.2.4-RC1.Beta", mode).getItems();
+      assertThat(v1.get(0)).isSameAs(v2.get(0));
+      assertThat(v1.get(1)).isSameAs(v2.get(1));
+      assertThat(v1.get(3)).isEqualTo(v2.get(3));
+    }
+    // 1-rc1 => [1, [rc1]]
+    Item rc1 = ((ListItem) new SmartVersion("1-rc1").getItems().get(1)).get(0);
+    Item cr1 = ((ListItem) new SmartVersion("2-CR1").getItems().get(1)).get(0);
+    assertThat(rc1).isSameAs(cr1);
+    assertThat(new SmartVersion("1000").getItems().get(0)).isEqualTo(new LongItem(1000));
+  }
+
   @Test
   void foo() {
     var v1 = new SmartVersion("1.2.3", ComparisonMode.SEMVER);
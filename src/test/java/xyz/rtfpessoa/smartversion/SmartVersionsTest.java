@@ -0,0 +1,121 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+class SmartVersionsTest {
+
+  private static final List<String> ORDERED =
+      List.of(
+          "1-alpha2",
+          "1-beta-2",
+          "1-m11",
+          "1-rc",
+          "1-SNAPSHOT",
+          "1",
+          "1-sp2",
+          "1-abc",
+          "1-1",
+          "1.0.1",
+          "2.0.1-klm",
+          "2.1-1",
+          "2.1.0.1",
+          "11",
+          "12345678901234567890");
+
+  @Test
+  void testSortStrings() {
+    for (long seed = 0; seed < 10; seed++) {
+      List<String> shuffled = new ArrayList<>(ORDERED);
+      Collections.shuffle(shuffled, new Random(seed));
+
+      assertEquals(ORDERED, SmartVersions.sortStrings(shuffled, ComparisonMode.MAVEN));
+    }
+  }
+
+  @Test
+  void testSortMatchesCollectionsSort() {
+    List<SmartVersion> versions = new ArrayList<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 10_000; i++) {
+      versions.add(
+          new SmartVersion(
+              random.nextInt(3) + "." + random.nextInt(20) + "-" + ORDERED.get(random.nextInt(15)),
+              ComparisonMode.MIXED));
+    }
+    List<SmartVersion> expected = new ArrayList<>(versions);
+    Collections.sort(expected);
+
+    List<SmartVersion> sorted = SmartVersions.sort(versions);
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(0, expected.get(i).compareTo(sorted.get(i)), "at index " + i);
+    }
+  }
+
+  @Test
+  void testSortKeepsOrderOfEqualVersions() {
+    SmartVersion v1 = new SmartVersion("1.0");
+    SmartVersion v2 = new SmartVersion("1-ga");
+    SmartVersion v3 = new SmartVersion("0.9");
+
+    List<SmartVersion> sorted = SmartVersions.sort(List.of(v1, v2, v3));
+    assertSame(v3, sorted.get(0));
+    assertSame(v1, sorted.get(1));
+    assertSame(v2, sorted.get(2));
+  }
+
+  @Test
+  void testFailToSortVersionsFromDifferentModes() {
+    List<SmartVersion> versions =
+        List.of(
+            new SmartVersion("1", ComparisonMode.MAVEN),
+            new SmartVersion("1", ComparisonMode.SEMVER));
+
+    assertThrows(IllegalArgumentException.class, () -> SmartVersions.sort(versions));
+  }
+
+  @Test
+  void testParseAllKeepsInputOrder() {
+    for (int chunkSize : new int[] {1, 4, SmartVersions.DEFAULT_CHUNK_SIZE}) {
+      SmartVersions.ParseResult result =
+          SmartVersions.parseAll(ORDERED, ComparisonMode.MAVEN, chunkSize);
+
+      assertFalse(result.hasFailures());
+      assertEquals(ORDERED.size(), result.size());
+      for (int i = 0; i < ORDERED.size(); i++) {
+        assertEquals(ORDERED.get(i), result.get(i).getOriginal());
+      }
+    }
+  }
+
+  @Test
+  void testParseAllKeepsFailuresByIndex() {
+    List<String> versions = Arrays.asList("1.0", null, "2.0", null);
+
+    SmartVersions.ParseResult result = SmartVersions.parseAll(versions, ComparisonMode.SEMVER, 1);
+
+    assertTrue(result.hasFailures());
+    assertEquals(List.of(1, 3), new ArrayList<>(result.failures().keySet()));
+    assertNull(result.get(1));
+    assertEquals("2.0", result.versions()[2].getOriginal());
+  }
+
+  @Test
+  void testFailToParseAllWithEmptyChunks() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> SmartVersions.parseAll(ORDERED, ComparisonMode.MAVEN, 0));
+  }
+}
@@ -0,0 +1,148 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+class SortKeyTest {
+
+  private static final String[] MAVEN_VERSIONS = {
+    "1-alpha2snapshot",
+    "1-alpha2",
+    "1-alpha-123",
+    "1-beta-2",
+    "1-beta123",
+    "1-m2",
+    "1-m11",
+    "1-rc",
+    "1-cr2",
+    "1-rc123",
+    "1-SNAPSHOT",
+    "1",
+    "1-sp",
+    "1-sp2",
+    "1-sp123",
+    "1-abc",
+    "1-def",
+    "1-pom-1",
+    "1-1-snapshot",
+    "1-1",
+    "1-2",
+    "1-123",
+    "2.0.1",
+    "2.0.1-klm",
+    "2.0.1-lmn",
+    "2.0.1-xyz",
+    "2.1b",
+    "2.1-c",
+    "2.1-1",
+    "2.1.0.1",
+    "11",
+    "11.a",
+    "11b",
+    "11m",
+    "12345678901234567890",
+    "123456789012345678901234567890"
+  };
+
+  private static final String[] SEMVER_VERSIONS = {
+    "0.0.1",
+    "1.0.0-alpha",
+    "1.0.0-alpha.1",
+    "1.0.0-beta",
+    "1.0.0-beta.2",
+    "1.0.0-beta.11",
+    "1.0.0-rc.1",
+    "1.0.0",
+    "1.0.0.foo",
+    "1.0.1",
+    "2.0.0"
+  };
+
+  private static final String[] MIXED_VERSIONS = {
+    "1.0.0-alpha1",
+    "1.0.0-alpha2",
+    "1.0.0-beta",
+    "1.0.0-m1",
+    "1.0.0-rc1",
+    "1.0.0-foo",
+    "1.0.0",
+    "1.0.0.1",
+    "1.1",
+    "12345678901234567890.1"
+  };
+
+  private static Stream<Arguments> orderedVersions() {
+    return Stream.of(
+        Arguments.of(ComparisonMode.MAVEN, MAVEN_VERSIONS),
+        Arguments.of(ComparisonMode.SEMVER, SEMVER_VERSIONS),
+        Arguments.of(ComparisonMode.MIXED, MIXED_VERSIONS));
+  }
+
+  @ParameterizedTest(name = "{0} mode")
+  @MethodSource("orderedVersions")
+  void testKeysFollowVersionOrder(ComparisonMode mode, String[] versions) {
+    for (int i = 0; i < versions.length; i++) {
+      byte[] low = new SmartVersion(versions[i], mode).toSortKey();
+      for (int j = i + 1; j < versions.length; j++) {
+        byte[] high = new SmartVersion(versions[j], mode).toSortKey();
+        assertTrue(
+            SortKey.compare(low, high) < 0, "expected " + versions[i] + " < " + versions[j]);
+        assertTrue(
+            SortKey.compare(high, low) > 0, "expected " + versions[j] + " > " + versions[i]);
+      }
+    }
+  }
+
+  @Test
+  void testEqualVersionsHaveEqualKeys() {
+    byte[] key = new SmartVersion("1").toSortKey();
+    for (String version : new String[] {"1.0", "1.0.0", "1-0", "1-ga", "1.final", "1-release"}) {
+      assertArrayEquals(key, new SmartVersion(version).toSortKey(), "expected 1 == " + version);
+    }
+
+    assertArrayEquals(
+        new SmartVersion("1.0.0-cr.1", ComparisonMode.MIXED).toSortKey(),
+        new SmartVersion("1.0.0-rc.1", ComparisonMode.MIXED).toSortKey());
+    assertArrayEquals(
+        new SmartVersion("1.0.0-beta.0", ComparisonMode.SEMVER).toSortKey(),
+        new SmartVersion("1.0.0-beta", ComparisonMode.SEMVER).toSortKey());
+  }
+
+  @Test
+  void testDescribe() {
+    assertEquals("1-alpha1", describe("1.0-alpha-1", ComparisonMode.MAVEN));
+    assertEquals("1-sp-foo1", describe("1.0-SP.foo1", ComparisonMode.MAVEN));
+    assertEquals("1.0.1-rc", describe("1.0.1-cr", ComparisonMode.MAVEN));
+    assertEquals(
+        "1.123456789012345678901", describe("1.123456789012345678901.ga", ComparisonMode.MAVEN));
+    assertEquals("1.0.0-beta.1", describe("1.0.0-beta.1+build.5", ComparisonMode.SEMVER));
+    assertEquals("1-beta.0", describe("1-beta", ComparisonMode.MIXED));
+    assertEquals("", describe("0.0.ga", ComparisonMode.MAVEN));
+  }
+
+  private static String describe(String version, ComparisonMode mode) {
+    return SortKey.describe(new SmartVersion(version, mode).toSortKey());
+  }
+
+  @Test
+  void testFailToDescribeMalformedKeys() {
+    byte[] key = new SmartVersion("1.0-alpha-1").toSortKey();
+
+    assertThrows(IllegalArgumentException.class, () -> SortKey.describe(new byte[0]));
+    assertThrows(IllegalArgumentException.class, () -> SortKey.describe(new byte[] {0x01}));
+    assertThrows(
+        IllegalArgumentException.class, () -> SortKey.describe(Arrays.copyOf(key, key.length - 1)));
+    assertThrows(
+        IllegalArgumentException.class, () -> SortKey.describe(Arrays.copyOf(key, key.length + 1)));
+  }
+}
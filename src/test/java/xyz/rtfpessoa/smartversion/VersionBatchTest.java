@@ -0,0 +1,81 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+class VersionBatchTest {
+
+  private static final String[] PARTS = {
+    "0", "1", "2", "10", "-alpha", "-rc1", ".sp", "-foo", "-1", "-SNAPSHOT", "+build"
+  };
+
+  @Test
+  void testCompareAllAgainstPivot() {
+    VersionBatch batch =
+        VersionBatch.of(
+            List.of(
+                new SmartVersion("1.0"),
+                new SmartVersion("1.2.3"),
+                new SmartVersion("1.2.3-rc1"),
+                SmartVersion.lazy("2.0"),
+                new SmartVersion("1.2.3.0")),
+            ComparisonMode.MAVEN);
+    SmartVersion pivot = new SmartVersion("1.2.3");
+    int[] out = new int[batch.size()];
+
+    batch.compareAll(pivot, out);
+
+    assertArrayEquals(new int[] {-1, 0, -1, 1, 0}, out);
+    assertEquals(1, batch.countNewerThan(pivot));
+    assertEquals(5, batch.countNewerThan(new SmartVersion("0.9")));
+  }
+
+  @Test
+  void testResultsMatchCompareTo() {
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      Random random = new Random(mode.ordinal());
+      List<SmartVersion> versions = new ArrayList<>();
+      for (int i = 0; i < 300; i++) {
+        StringBuilder version = new StringBuilder(PARTS[random.nextInt(4)]);
+        for (int n = random.nextInt(6); n > 0; n--) {
+          String part = PARTS[random.nextInt(PARTS.length)];
+          version.append(Character.isDigit(part.charAt(0)) ? "." + part : part);
+        }
+        versions.add(new SmartVersion(version.toString(), mode));
+      }
+      VersionBatch batch = VersionBatch.of(versions, mode);
+      int[] out = new int[versions.size()];
+
+      for (SmartVersion pivot : versions) {
+        batch.compareAll(pivot, out);
+        int newer = 0;
+        for (int i = 0; i < out.length; i++) {
+          int expected = Integer.signum(versions.get(i).compareTo(pivot));
+          assertEquals(expected, out[i], versions.get(i) + " compared to " + pivot);
+          newer += expected > 0 ? 1 : 0;
+        }
+        assertEquals(newer, batch.countNewerThan(pivot), pivot + " in " + mode);
+      }
+    }
+  }
+
+  @Test
+  void testFailToCompareInvalidArguments() {
+    VersionBatch batch = VersionBatch.of(List.of(new SmartVersion("1.0")), ComparisonMode.MAVEN);
+    SmartVersion semver = new SmartVersion("1.0", ComparisonMode.SEMVER);
+
+    assertThrows(IllegalArgumentException.class, () -> batch.countNewerThan(semver));
+    assertThrows(
+        IllegalArgumentException.class, () -> batch.compareAll(new SmartVersion("1"), new int[0]));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> VersionBatch.of(List.of(semver), ComparisonMode.MAVEN));
+  }
+}
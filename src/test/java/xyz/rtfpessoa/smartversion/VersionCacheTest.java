@@ -0,0 +1,90 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+class VersionCacheTest {
+
+  @Test
+  void testReturnsSharedInstances() {
+    VersionCache cache = new VersionCache(16);
+    SmartVersion v1 = cache.get("1.2.3", ComparisonMode.MAVEN);
+
+    assertSame(v1, cache.get("1.2.3", ComparisonMode.MAVEN));
+    assertEquals("1.2.3", cache.get("1.2.3", ComparisonMode.SEMVER).getCanonical());
+    assertEquals(new VersionCache.Stats(1, 2, 0), cache.stats());
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  void testSharedCacheReturnsSharedInstances() {
+    SmartVersion version = SmartVersion.of("1.2.3");
+
+    assertSame(version, SmartVersion.of("1.2.3", ComparisonMode.MAVEN));
+    assertEquals(new SmartVersion("1.2.3"), version);
+  }
+
+  @Test
+  void testEvictsVersionsNotUsedRecently() {
+    VersionCache cache = new VersionCache(2);
+    SmartVersion v1 = cache.get("1", ComparisonMode.MAVEN);
+    cache.get("2", ComparisonMode.MAVEN);
+    cache.get("1", ComparisonMode.MAVEN);
+    cache.get("3", ComparisonMode.MAVEN);
+
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.stats().evictionCount());
+    assertSame(v1, cache.get("1", ComparisonMode.MAVEN));
+  }
+
+  @Test
+  void testFailToCreateEmptyCache() {
+    assertThrows(IllegalArgumentException.class, () -> new VersionCache(0));
+  }
+
+  @Test
+  void testInvalidSharedSizeFallsBackToDefault() {
+    assertEquals(VersionCache.DEFAULT_MAXIMUM_SIZE, VersionCache.sharedMaximumSize(null));
+    assertEquals(128, VersionCache.sharedMaximumSize("128"));
+    assertEquals(VersionCache.DEFAULT_MAXIMUM_SIZE, VersionCache.sharedMaximumSize("0"));
+    assertEquals(VersionCache.DEFAULT_MAXIMUM_SIZE, VersionCache.sharedMaximumSize("-5"));
+    assertEquals(VersionCache.DEFAULT_MAXIMUM_SIZE, VersionCache.sharedMaximumSize("large"));
+  }
+
+  @Test
+  void testConcurrentAccess() throws Exception {
+    VersionCache cache = new VersionCache(64);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < 10_000; i++) {
+                    String version = "1." + (i % 128);
+                    assertEquals(version, cache.get(version, ComparisonMode.MAVEN).getOriginal());
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertTrue(cache.size() <= cache.maximumSize());
+    assertEquals(80_000, cache.stats().requestCount());
+  }
+}
@@ -0,0 +1,143 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+class VersionCatalogTest {
+
+  private static final List<String> VERSIONS =
+      List.of(
+          "3.1", "2.0", "3.0-rc1", "3.2.1", "1.0-SNAPSHOT", "3.0", "2.1.0.1", "3.1-beta", "2.0");
+
+  private static final VersionCatalog CATALOG =
+      VersionCatalog.parse(VERSIONS, ComparisonMode.MAVEN);
+
+  private static final String[] PARTS = {
+    "0", "1", "2", "10", "-alpha", "-rc1", ".sp", "-foo", "-1", ".300"
+  };
+
+  @Test
+  void testColumns() {
+    assertEquals(VERSIONS.size(), CATALOG.size());
+    assertEquals("3.2.1", CATALOG.getOriginal(3));
+    assertEquals(3, CATALOG.number(3, 0));
+    assertEquals(2, CATALOG.number(3, 1));
+    assertEquals(1, CATALOG.number(3, 2));
+    assertEquals(0, CATALOG.number(0, 2));
+    assertEquals(VersionCatalog.NOT_A_NUMBER, CATALOG.number(2, 1));
+    assertEquals("rc", CATALOG.qualifier(2));
+    assertNull(CATALOG.qualifier(0));
+    assertTrue(CATALOG.isPreRelease(4));
+    assertFalse(CATALOG.isPreRelease(5));
+    assertEquals(new SmartVersion("3.1-beta"), CATALOG.get(7));
+  }
+
+  @Test
+  void testNoNumbersAfterAQualifier() {
+    VersionCatalog catalog =
+        VersionCatalog.parse(List.of("1-rc", "x", "1.0-SNAPSHOT", "1"), ComparisonMode.MAVEN);
+    for (int column = 0; column < VersionCatalog.NUMBER_COLUMNS; column++) {
+      assertEquals(column < 1 ? 1 : VersionCatalog.NOT_A_NUMBER, catalog.number(0, column));
+      assertEquals(VersionCatalog.NOT_A_NUMBER, catalog.number(1, column));
+      assertEquals(column < 1 ? 1 : VersionCatalog.NOT_A_NUMBER, catalog.number(2, column));
+      assertEquals(column < 1 ? 1 : 0, catalog.number(3, column));
+    }
+    assertEquals(VersionCatalog.NOT_A_NUMBER, CATALOG.number(4, 2));
+  }
+
+  @Test
+  void testQualifiersOfEqualRankShareACode() {
+    VersionCatalog catalog =
+        VersionCatalog.parse(
+            List.of("1.0-ga", "1.0-final", "1.0-release", "1.0-cr1", "1.0-rc2", "1.0-foo"),
+            ComparisonMode.MAVEN);
+    assertEquals("", catalog.qualifier(0));
+    assertEquals("", catalog.qualifier(2));
+    assertEquals("rc", catalog.qualifier(3));
+    assertEquals("foo", catalog.qualifier(5));
+    assertArrayEquals(new int[] {0, 1, 2}, catalog.withQualifier("final"));
+    assertArrayEquals(new int[] {3, 4}, catalog.withQualifier("cr"));
+    assertArrayEquals(new int[] {5}, catalog.withQualifier("foo"));
+
+    VersionCatalog semver =
+        VersionCatalog.parse(List.of("1.0.0-ga", "1.0.0-final"), ComparisonMode.SEMVER);
+    assertArrayEquals(new int[] {1}, semver.withQualifier("final"));
+  }
+
+  @Test
+  void testScans() {
+    int[] releasesOfMajor3 =
+        CATALOG.filter(row -> CATALOG.number(row, 0) == 3 && !CATALOG.isPreRelease(row));
+    assertArrayEquals(new int[] {0, 3, 5}, releasesOfMajor3);
+    assertEquals(3, CATALOG.maxRow(releasesOfMajor3));
+    assertEquals(5, CATALOG.minRow(releasesOfMajor3));
+    assertEquals(-1, CATALOG.maxRow(new int[0]));
+    assertArrayEquals(new int[] {4}, CATALOG.withQualifier("snapshot"));
+    assertArrayEquals(new int[0], CATALOG.withQualifier("foo"));
+
+    Map<Long, SmartVersion> latest = CATALOG.maxBy(row -> CATALOG.number(row, 0));
+    assertEquals("{3=3.2.1, 2=2.1.0.1, 1=1.0-SNAPSHOT}", latest.toString());
+    Map<Long, SmartVersion> first = CATALOG.minBy(row -> CATALOG.number(row, 0));
+    assertEquals("{3=3.0-rc1, 2=2.0, 1=1.0-SNAPSHOT}", first.toString());
+  }
+
+  @Test
+  void testSortedRows() {
+    List<String> sorted = new ArrayList<>();
+    for (int row : CATALOG.sortedRows()) {
+      sorted.add(CATALOG.getOriginal(row));
+    }
+    assertEquals(
+        "[1.0-SNAPSHOT, 2.0, 2.0, 2.1.0.1, 3.0-rc1, 3.0, 3.1-beta, 3.1, 3.2.1]",
+        sorted.toString());
+  }
+
+  @Test
+  void testRowsCompareLikeSortKeys() {
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      Random random = new Random(mode.ordinal());
+      List<String> strings = new ArrayList<>();
+      for (int i = 0; i < 300; i++) {
+        StringBuilder version = new StringBuilder(PARTS[random.nextInt(4)]);
+        for (int n = random.nextInt(6); n > 0; n--) {
+          String part = PARTS[random.nextInt(PARTS.length)];
+          version.append(Character.isDigit(part.charAt(0)) ? "." + part : part);
+        }
+        strings.add(version.toString());
+      }
+      VersionCatalog catalog = VersionCatalog.parse(strings, mode);
+
+      for (int a = 0; a < strings.size(); a++) {
+        byte[] key = new SmartVersion(strings.get(a), mode).toSortKey();
+        for (int b = 0; b < strings.size(); b++) {
+          byte[] otherKey = new SmartVersion(strings.get(b), mode).toSortKey();
+          assertEquals(
+              Integer.signum(SortKey.compare(key, otherKey)),
+              Integer.signum(catalog.compareRows(a, b)),
+              strings.get(a) + " compared to " + strings.get(b) + " in " + mode);
+        }
+      }
+    }
+  }
+
+  @Test
+  void testFailToCopyVersionsFromDifferentModes() {
+    List<SmartVersion> versions =
+        List.of(new SmartVersion("1.0"), new SmartVersion("1.0", ComparisonMode.SEMVER));
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> VersionCatalog.copyOf(versions, ComparisonMode.MAVEN));
+  }
+}
@@ -0,0 +1,139 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+class VersionConstraintTest {
+
+  private static Stream<Arguments> mavenConstraints() {
+    return Stream.of(
+        Arguments.of("[1.0,2.0)", "1.0", true),
+        Arguments.of("[1.0,2.0)", "1.5-SNAPSHOT", true),
+        Arguments.of("[1.0,2.0)", "2.0", false),
+        Arguments.of("[1.0,2.0)", "2.0-alpha", true),
+        Arguments.of("(1.0,2.0]", "1.0", false),
+        Arguments.of("(1.0,2.0]", "2.0.0", true),
+        Arguments.of("(,1.5]", "0.1", true),
+        Arguments.of("(,1.5]", "1.5.1", false),
+        Arguments.of("[1.5,)", "99", true),
+        Arguments.of("[1.2]", "1.2.0", true),
+        Arguments.of("[1.2]", "1.2.1", false),
+        Arguments.of("(,1.0],[1.2,)", "1.1", false),
+        Arguments.of("(,1.0],[1.2,)", "1.0-ga", true),
+        Arguments.of("(,1.0],[1.2,)", "1.3", true),
+        Arguments.of("[1.0,),[2.0,)", "1.5", true),
+        Arguments.of("[1.0,),(,0.5]", "0.1", true),
+        Arguments.of("[1.0,),(,0.5]", "0.7", false),
+        Arguments.of("1.0", "3.0", true));
+  }
+
+  @ParameterizedTest(name = "{0} matches {1}: {2}")
+  @MethodSource("mavenConstraints")
+  void testMavenConstraints(String constraint, String version, boolean matches) {
+    assertEquals(matches, VersionConstraint.parse(constraint).test(new SmartVersion(version)));
+  }
+
+  private static Stream<Arguments> npmConstraints() {
+    return Stream.of(
+        Arguments.of("^1.2.3", "1.2.3", true),
+        Arguments.of("^1.2.3", "1.9.0", true),
+        Arguments.of("^1.2.3", "2.0.0", false),
+        Arguments.of("^1.2.3", "1.2.2", false),
+        Arguments.of("^1.2.3", "1.3.0-beta", false),
+        Arguments.of("^1.2.3-beta.2", "1.2.3-beta.4", true),
+        Arguments.of("^1.2.3-beta.2", "1.2.3-beta.1", false),
+        Arguments.of("^1.2.3-beta.2", "1.2.4-beta.4", false),
+        Arguments.of("^0.2.3", "0.2.9", true),
+        Arguments.of("^0.2.3", "0.3.0", false),
+        Arguments.of("^0.0.3", "0.0.4", false),
+        Arguments.of("^0.x", "0.9.9", true),
+        Arguments.of("~1.2", "1.2.9", true),
+        Arguments.of("~1.2", "1.3.0", false),
+        Arguments.of("~1", "1.9.0", true),
+        Arguments.of("~1.2.3", "1.2.2", false),
+        Arguments.of(">=1.0.0 <2.0.0", "1.5.0", true),
+        Arguments.of(">=1.0.0 <2.0.0", "2.0.0", false),
+        Arguments.of(">= 1.0.0 < 2.0.0", "0.9.0", false),
+        Arguments.of(">1.2", "1.2.9", false),
+        Arguments.of(">1.2", "1.3.0", true),
+        Arguments.of("<=1.2", "1.2.9", true),
+        Arguments.of("<1.2", "1.2.0", false),
+        Arguments.of("1.2.x", "1.2.7", true),
+        Arguments.of("1.2.x", "1.3.0", false),
+        Arguments.of("1.2", "1.2.7", true),
+        Arguments.of("v1.2.3", "1.2.3", true),
+        Arguments.of("=1.2.3", "1.2.4", false),
+        Arguments.of("*", "42.0.0", true),
+        Arguments.of("*", "1.0.0-rc.1", false),
+        Arguments.of("", "1.0.0", true),
+        Arguments.of("<*", "1.0.0", false),
+        Arguments.of("1.2.3 - 2.3.4", "2.3.4", true),
+        Arguments.of("1.2.3 - 2.3", "2.3.9", true),
+        Arguments.of("1.2.3 - 2.3", "2.4.0", false),
+        Arguments.of("1.2 - 2", "1.2.0", true),
+        Arguments.of("1.x || >=2.5.0", "2.0.0", false),
+        Arguments.of("1.x || >=2.5.0", "1.9.9", true),
+        Arguments.of("1.x || >=2.5.0", "3.0.0", true),
+        Arguments.of(">2.0.0 <1.0.0", "1.5.0", false));
+  }
+
+  @ParameterizedTest(name = "{0} matches {1}: {2}")
+  @MethodSource("npmConstraints")
+  void testNpmConstraints(String constraint, String version, boolean matches) {
+    for (ComparisonMode mode : new ComparisonMode[] {ComparisonMode.SEMVER, ComparisonMode.MIXED}) {
+      assertEquals(
+          matches,
+          VersionConstraint.parse(constraint, mode).test(new SmartVersion(version, mode)),
+          constraint + " in " + mode + " mode");
+    }
+  }
+
+  @Test
+  void testRanges() {
+    assertEquals(
+        "[(,1.0], [1.2,)]", VersionConstraint.parse("(,1.0],[1.2,)").getRanges().toString());
+    assertEquals("[[1.2]]", VersionConstraint.parse("[1.2]").getRanges().toString());
+    assertEquals(
+        "[[1.2.3,2.0.0), [3.0.0,3.1.0)]",
+        VersionConstraint.parse("^1.2.3 || ~3.0", ComparisonMode.SEMVER).getRanges().toString());
+  }
+
+  @Test
+  void testEqualConstraints() {
+    assertEquals(VersionConstraint.parse("[1.0,2.0)"), VersionConstraint.parse("[1.0,2.0)"));
+    assertEquals(
+        VersionConstraint.parse("[1.0,2.0)").hashCode(),
+        VersionConstraint.parse("[1.0,2.0)").hashCode());
+  }
+
+  @Test
+  void testFailToParseInvalidConstraints() {
+    String[] mavenConstraints = {
+      "[1.0,2.0", "(1.0)", "[2.0,1.0]", "(1.0,1.0]", "[1.0,2.0),[1.5,)", "[1,2],3"
+    };
+    for (String constraint : mavenConstraints) {
+      assertThrows(
+          IllegalArgumentException.class, () -> VersionConstraint.parse(constraint), constraint);
+    }
+    for (String constraint : new String[] {"^1.a", ">=1.2.3.4", "1.2-beta", "^"}) {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> VersionConstraint.parse(constraint, ComparisonMode.SEMVER),
+          constraint);
+    }
+  }
+
+  @Test
+  void testFailToTestVersionsFromDifferentModes() {
+    VersionConstraint constraint = VersionConstraint.parse("^1.2.3", ComparisonMode.SEMVER);
+
+    assertThrows(IllegalArgumentException.class, () -> constraint.test(new SmartVersion("1.2.3")));
+  }
+}
@@ -0,0 +1,146 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+class VersionRangeIndexTest {
+
+  private static int[] matching(VersionRangeIndex index, String version) {
+    int[] matches = index.matching(new SmartVersion(version));
+    Arrays.sort(matches);
+    return matches;
+  }
+
+  @Test
+  void testMatching() {
+    List<VersionRange> ranges = new ArrayList<>();
+    for (String constraint : new String[] {"[1.0,2.0)", "(,1.5]", "[1.5,)", "[1.2]", "(2.0,3.0]"}) {
+      ranges.addAll(VersionConstraint.parse(constraint).getRanges());
+    }
+    VersionRangeIndex index = VersionRangeIndex.build(ranges, ComparisonMode.MAVEN);
+
+    assertEquals(5, index.size());
+    assertArrayEquals(new int[] {1}, matching(index, "0.1"));
+    assertArrayEquals(new int[] {0, 1}, matching(index, "1.0"));
+    assertArrayEquals(new int[] {0, 1, 3}, matching(index, "1.2.0"));
+    assertArrayEquals(new int[] {0, 1, 2}, matching(index, "1.5"));
+    assertArrayEquals(new int[] {0, 2}, matching(index, "1.9"));
+    assertArrayEquals(new int[] {2}, matching(index, "2.0"));
+    assertArrayEquals(new int[] {2, 4}, matching(index, "3.0"));
+    assertArrayEquals(new int[] {2}, matching(index, "3.0.1"));
+  }
+
+  @Test
+  void testMatchesLinearScan() {
+    Random random = new Random(7);
+    List<VersionRange> ranges = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      SmartVersion lower = random.nextInt(10) == 0 ? null : randomVersion(random);
+      SmartVersion upper = random.nextInt(10) == 0 ? null : randomVersion(random);
+      if (lower != null && upper != null && lower.compareTo(upper) >= 0) {
+        ranges.add(VersionRange.exactly(lower));
+      } else {
+        ranges.add(new VersionRange(lower, random.nextBoolean(), upper, random.nextBoolean()));
+      }
+    }
+    VersionRangeIndex index = VersionRangeIndex.build(ranges, ComparisonMode.MAVEN);
+
+    for (int i = 0; i < 500; i++) {
+      SmartVersion version = randomVersion(random);
+      List<Integer> expected = new ArrayList<>();
+      for (int r = 0; r < ranges.size(); r++) {
+        if (ranges.get(r).contains(version)) {
+          expected.add(r);
+        }
+      }
+      int[] matches = index.matching(version);
+      Arrays.sort(matches);
+      assertArrayEquals(
+          expected.stream().mapToInt(Integer::intValue).toArray(), matches, version.toString());
+    }
+  }
+
+  @Test
+  void testMatchesSortKeysWhereCompareToIsNotTransitive() {
+    // compareTo is not transitive for some of these versions, e.g. 1-redhat-00001, 1-0.alpha and 1
+    List<SmartVersion> versions = new ArrayList<>();
+    for (String version :
+        List.of(
+            "1.0.final-redhat", "1", "1-0.alpha", "1-redhat-00001", "v1.2.3", "0.0-GA",
+            "0.0.0rc0.dev1", "1.0.0-RC2", "1.0.0", "2")) {
+      versions.add(new SmartVersion(version));
+    }
+    Random random = new Random(11);
+    List<VersionRange> ranges = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      SmartVersion lower = versions.get(random.nextInt(versions.size()));
+      SmartVersion upper = versions.get(random.nextInt(versions.size()));
+      if (lower.compareTo(upper) == 0) {
+        ranges.add(VersionRange.exactly(lower));
+      } else if (lower.compareTo(upper) < 0
+          && SortKey.compare(lower.toSortKey(), upper.toSortKey()) < 0) {
+        ranges.add(new VersionRange(lower, random.nextBoolean(), upper, random.nextBoolean()));
+      }
+    }
+    VersionRangeIndex index = VersionRangeIndex.build(ranges, ComparisonMode.MAVEN);
+
+    for (SmartVersion version : versions) {
+      byte[] key = version.toSortKey();
+      List<Integer> expected = new ArrayList<>();
+      for (int r = 0; r < ranges.size(); r++) {
+        VersionRange range = ranges.get(r);
+        int lower = SortKey.compare(key, range.lower().toSortKey());
+        int upper = SortKey.compare(key, range.upper().toSortKey());
+        if ((lower > 0 || lower == 0 && range.lowerInclusive())
+            && (upper < 0 || upper == 0 && range.upperInclusive())) {
+          expected.add(r);
+        }
+      }
+      int[] matches = index.matching(version);
+      Arrays.sort(matches);
+      assertArrayEquals(
+          expected.stream().mapToInt(Integer::intValue).toArray(), matches, version.toString());
+    }
+  }
+
+  private static SmartVersion randomVersion(Random random) {
+    String version = random.nextInt(4) + "." + random.nextInt(6);
+    if (random.nextBoolean()) {
+      version += "." + random.nextInt(3);
+    }
+    if (random.nextInt(4) == 0) {
+      version += "-rc" + random.nextInt(3);
+    }
+    return new SmartVersion(version);
+  }
+
+  @Test
+  void testEmptyIndex() {
+    VersionRangeIndex index = VersionRangeIndex.build(List.of(), ComparisonMode.MAVEN);
+
+    assertArrayEquals(new int[0], matching(index, "1.0"));
+  }
+
+  @Test
+  void testFailToMatchVersionsFromDifferentModes() {
+    VersionRangeIndex index =
+        VersionRangeIndex.build(
+            VersionConstraint.parse("^1.2.3", ComparisonMode.SEMVER).getRanges(),
+            ComparisonMode.SEMVER);
+
+    assertThrows(IllegalArgumentException.class, () -> index.matching(new SmartVersion("1.2.3")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            VersionRangeIndex.build(
+                VersionConstraint.parse("[1.0,2.0)").getRanges(), ComparisonMode.SEMVER));
+  }
+}
@@ -0,0 +1,167 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+class VersionSerializerTest {
+
+  private static final List<String> VERSIONS =
+      List.of(
+          "1",
+          "1.0.0",
+          "1.2.3-alpha.1",
+          "1.0-RC2",
+          "1.0.0.RC1-SNAPSHOT",
+          "2.0.0-beta+build.5",
+          "1.0alpha1-sp",
+          "3.0-\u00fc-1",
+          "v1.2.3",
+          "12345678901234567890123.1",
+          "");
+
+  @Test
+  void testRoundTripInAllModes() throws IOException {
+    for (ComparisonMode mode : ComparisonMode.values()) {
+      for (String string : VERSIONS) {
+        SmartVersion version = new SmartVersion(string, mode);
+        SmartVersion read = readFrom(write(version, true));
+
+        String message = mode + " " + string;
+        assertEquals(0, version.compareTo(read), message);
+        assertEquals(string, read.getOriginal(), message);
+        assertEquals(version.getCanonical(), read.getCanonical(), message);
+        assertArrayEquals(version.toSortKey(), read.toSortKey(), message);
+        assertEquals(version.isPreRelease(), read.isPreRelease(), message);
+      }
+    }
+  }
+
+  @Test
+  void testRoundTripWithoutOriginal() throws IOException {
+    SmartVersion version = new SmartVersion("1.0.0");
+    byte[] bytes = write(version, false);
+    SmartVersion read = readFrom(bytes);
+
+    assertEquals(version, read);
+    assertEquals(version.getCanonical(), read.getOriginal());
+    assertEquals(write(version, true).length, bytes.length + 1 + "1.0.0".length());
+  }
+
+  @Test
+  void testRoundTripThroughByteBuffer() {
+    ByteBuffer buffer = ByteBuffer.allocate(128);
+    SmartVersion first = new SmartVersion("1.2.3-rc.1", ComparisonMode.SEMVER);
+    SmartVersion second = new SmartVersion("1.2.3");
+    first.writeTo(buffer);
+    second.writeTo(buffer, false);
+    buffer.flip();
+
+    assertEquals(first, SmartVersion.readFrom(buffer));
+    assertEquals(second, SmartVersion.readFrom(buffer));
+    assertFalse(buffer.hasRemaining());
+  }
+
+  @Test
+  void testJavaSerializationUsesBinaryForm() throws Exception {
+    SmartVersion version = new SmartVersion("1.0.0-beta.2", ComparisonMode.MIXED);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(version);
+    }
+
+    SmartVersion read;
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      read = (SmartVersion) in.readObject();
+    }
+
+    assertEquals(version, read);
+    assertEquals("1.0.0-beta.2", read.getOriginal());
+  }
+
+  @Test
+  void testFailToReadUnsupportedOrTruncatedData() throws IOException {
+    byte[] bytes = write(new SmartVersion("1.0"), true);
+
+    byte[] unsupported = bytes.clone();
+    unsupported[0] = 2;
+    assertThrows(IllegalArgumentException.class, () -> readFrom(unsupported));
+
+    byte[] invalidItem = bytes.clone();
+    invalidItem[3] = 42;
+    assertThrows(IllegalArgumentException.class, () -> readFrom(invalidItem));
+
+    byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+    assertThrows(EOFException.class, () -> readFrom(truncated));
+  }
+
+  @Test
+  void testFailToReadLengthsLongerThanTheData() {
+    // the format version, the header, and lengths of about 2 GB with nothing after them
+    byte[] hugeList = {1, 0, (byte) 0x80, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, 0x07};
+    byte[] hugeNumber = {1, 0, 1, 2, (byte) 0x80, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, 0x07};
+    byte[] hugeString = {1, 0, 1, 3, 7, (byte) 0x80, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, 0x07};
+
+    assertThrows(EOFException.class, () -> readFrom(hugeList));
+    assertThrows(EOFException.class, () -> readFrom(hugeNumber));
+    assertThrows(EOFException.class, () -> readFrom(hugeString));
+  }
+
+  @Test
+  void testFailToReadNegativeLengths() {
+    // the format version, the header, and a list, number or string length with all 64 bits set
+    byte[] minusOne = {-1, -1, -1, -1, -1, -1, -1, -1, -1, 1};
+    byte[][] prefixes = {{1, 0}, {1, 0, 1, 2}, {1, 0, 1, 3, 7}};
+    for (byte[] prefix : prefixes) {
+      byte[] bytes = Arrays.copyOf(prefix, prefix.length + minusOne.length);
+      System.arraycopy(minusOne, 0, bytes, prefix.length, minusOne.length);
+      assertThrows(IllegalArgumentException.class, () -> readFrom(bytes));
+    }
+  }
+
+  @Test
+  void testRoundTripOfLongQualifier() throws IOException {
+    String version = "1-" + "x".repeat(10_000);
+    SmartVersion read = readFrom(write(new SmartVersion(version), true));
+
+    assertEquals(version, read.getOriginal());
+    assertEquals(new SmartVersion(version), read);
+  }
+
+  @Test
+  void testFailToReadQualifierWithWrongRank() {
+    // a single "rc" qualifier, written with the rank of "alpha"
+    byte[] bytes = {1, 0, 1, 3, 0, 2, 'r', 'c'};
+    assertThrows(IllegalArgumentException.class, () -> readFrom(bytes));
+
+    bytes[4] = 3;
+    assertDoesNotThrow(() -> readFrom(bytes));
+  }
+
+  private static byte[] write(SmartVersion version, boolean includeOriginal) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    version.writeTo(new DataOutputStream(bytes), includeOriginal);
+    return bytes.toByteArray();
+  }
+
+  private static SmartVersion readFrom(byte[] bytes) throws IOException {
+    return SmartVersion.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+  }
+}
@@ -0,0 +1,99 @@
+package xyz.rtfpessoa.smartversion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+import xyz.rtfpessoa.smartversion.Item.ComparisonMode;
+
+class VersionSetTest {
+
+  private static final VersionSet SET =
+      VersionSet.parse(
+          List.of("2.0", "1.0", "1.1-SNAPSHOT", "1.0.0", "1.1", "3.0-rc1", "1-ga", "1.2"),
+          ComparisonMode.MAVEN);
+
+  private static String original(SmartVersion version) {
+    return version == null ? null : version.getOriginal();
+  }
+
+  private static SmartVersion v(String version) {
+    return new SmartVersion(version);
+  }
+
+  @Test
+  void testSortedDistinctVersions() {
+    assertEquals("[1.0, 1.1-SNAPSHOT, 1.1, 1.2, 2.0, 3.0-rc1]", SET.toString());
+    assertEquals(6, SET.size());
+    assertEquals("1.0", original(SET.first()));
+    assertEquals("3.0-rc1", original(SET.last()));
+    assertEquals("1.2", original(SET.get(3)));
+    assertTrue(SET.contains(v("1-ga")));
+    assertFalse(SET.contains(v("1.3")));
+  }
+
+  @Test
+  void testNavigation() {
+    assertEquals("1.2", original(SET.floor(v("1.5"))));
+    assertEquals("1.2", original(SET.floor(v("1.2"))));
+    assertNull(SET.floor(v("0.9")));
+    assertEquals("2.0", original(SET.ceiling(v("1.5"))));
+    assertNull(SET.ceiling(v("3.0")));
+    assertEquals("1.1", original(SET.lower(v("1.2"))));
+    assertEquals("2.0", original(SET.higher(v("1.2"))));
+    assertNull(SET.higher(v("3.0-rc1")));
+  }
+
+  @Test
+  void testSubSet() {
+    assertEquals(
+        "[1.1-SNAPSHOT, 1.1, 1.2]", SET.subSet(v("1.0"), false, v("2.0"), false).toString());
+    assertEquals("[1.1, 1.2, 2.0]", SET.subSet(v("1.1"), true, v("2"), true).toString());
+    assertEquals("[]", SET.subSet(v("1.5"), true, v("1.6"), true).toString());
+
+    VersionSet subSet = SET.subSet(v("1.0"), true, v("1.2"), true);
+    assertEquals("1.1", original(subSet.floor(v("1.1.5"))));
+    assertNull(subSet.higher(v("1.2")));
+    assertThrows(IllegalArgumentException.class, () -> SET.subSet(v("2"), true, v("1"), true));
+  }
+
+  @Test
+  void testLatest() {
+    assertEquals("3.0-rc1", original(SET.latest(version -> true)));
+    assertEquals("2.0", original(SET.latest(version -> !version.isPreRelease())));
+    assertNull(SET.latest(version -> false));
+  }
+
+  @Test
+  void testMatchesTreeSet() {
+    List<SmartVersion> versions = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      String version = i % 7 + "." + i % 5 + (i % 3 == 0 ? "-beta" : "");
+      versions.add(new SmartVersion(version, ComparisonMode.SEMVER));
+    }
+    TreeSet<SmartVersion> expected = new TreeSet<>(versions);
+    VersionSet set = VersionSet.copyOf(versions, ComparisonMode.SEMVER);
+
+    assertEquals(expected.size(), set.size());
+    for (SmartVersion version : versions) {
+      assertEquals(original(expected.floor(version)), original(set.floor(version)));
+      assertEquals(original(expected.higher(version)), original(set.higher(version)));
+    }
+  }
+
+  @Test
+  void testFailToMixModes() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> VersionSet.copyOf(List.of(v("1.0")), ComparisonMode.SEMVER));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> SET.floor(new SmartVersion("1.0", ComparisonMode.SEMVER)));
+  }
+}